@@ -0,0 +1,88 @@
+package tn.pi.clientservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import tn.pi.clientservice.config.SecurityConfig;
+import tn.pi.clientservice.security.TokenService;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authentication throughput: HTTP Basic, which BCrypt-checks the password on
+ * every call (the scheme before bearer tokens), against verifying a signed access token.
+ * Both go through the Spring Security provider the filter chain uses for that scheme.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+
+    private static final String ISSUER = "client-service";
+
+    /**
+     * Work factor of the Basic-auth password check; 10 is the configured default
+     */
+    @Param({"10"})
+    private int strength;
+
+    private DaoAuthenticationProvider basicProvider;
+
+    private JwtAuthenticationProvider bearerProvider;
+
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        basicProvider = new DaoAuthenticationProvider(new InMemoryUserDetailsManager(User.withUsername("admin")
+                .password(encoder.encode("password"))
+                .roles("ADMIN")
+                .build()));
+        basicProvider.setPasswordEncoder(encoder);
+
+        SecurityConfig securityConfig = new SecurityConfig();
+        SecretKey key = securityConfig.jwtSecretKey("benchmark-secret-key-of-at-least-thirty-two-bytes");
+        bearerProvider = new JwtAuthenticationProvider(securityConfig.jwtDecoder(key, ISSUER));
+        bearerProvider.setJwtAuthenticationConverter(securityConfig.jwtAuthenticationConverter());
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(ISSUER)
+                .subject("1")
+                .issuedAt(now)
+                .expiresAt(now.plus(1, ChronoUnit.DAYS))
+                .claim(TokenService.TYPE_CLAIM, TokenService.ACCESS)
+                .claim(TokenService.ROLES_CLAIM, List.of("ADMIN"))
+                .build();
+        accessToken = securityConfig.jwtEncoder(key)
+                .encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+                .getTokenValue();
+    }
+
+    @Benchmark
+    public Authentication basic() {
+        return basicProvider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated("admin", "password"));
+    }
+
+    @Benchmark
+    public Authentication bearer() {
+        return bearerProvider.authenticate(new BearerTokenAuthenticationToken(accessToken));
+    }
+}
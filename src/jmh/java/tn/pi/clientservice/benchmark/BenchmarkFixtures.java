@@ -0,0 +1,105 @@
+package tn.pi.clientservice.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.pi.clientservice.ClientServiceApplication;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.repository.ClientRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sample data and an in-memory application context shared by the benchmarks
+ */
+final class BenchmarkFixtures {
+
+    /**
+     * BCrypt hash of "password" at cost 4, so seeding does not dominate setup time
+     */
+    static final String PASSWORD_HASH = "$2a$04$8MXl/zZztoDR9tMxvu5MTOQdwUxqWzlbJxsk6rqAAX1UyCtaJvFDe";
+
+    private BenchmarkFixtures() {
+    }
+
+    static Client client(long i) {
+        Client client = new Client();
+        client.setId(i);
+        client.setFirstName("First" + i);
+        client.setLastName("Last" + i);
+        client.setEmail("client" + i + "@example.com");
+        client.setPhone("+216 20 000 " + i);
+        client.setUsername("client" + i);
+        client.setPassword(PASSWORD_HASH);
+        client.setAddress(i + " Avenue Habib Bourguiba, Tunis");
+        client.setRole(i % 10 == 0 ? UserRole.ADMIN : UserRole.CLIENT);
+        client.setStatus(UserStatus.values()[(int) (i % UserStatus.values().length)]);
+        client.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i));
+        client.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 0, 0).plusMinutes(i));
+        return client;
+    }
+
+    static ClientDTO clientDTO(long i) {
+        ClientDTO dto = new ClientDTO("First" + i, "Last" + i, "client" + i + "@example.com", "client" + i, "password");
+        dto.setId(i);
+        dto.setPhone("+216 20 000 " + i);
+        dto.setAddress(i + " Avenue Habib Bourguiba, Tunis");
+        dto.setRole(UserRole.CLIENT);
+        dto.setStatus(UserStatus.ACTIVE);
+        dto.setCreatedAt(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i));
+        dto.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 0, 0).plusMinutes(i));
+        return dto;
+    }
+
+    /**
+     * Insert clients 0..count-1 in batches and return their generated ids
+     */
+    static long[] seedClients(ClientRepository clientRepository, int count) {
+        List<Client> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Client client = client(i);
+            client.setId(null);
+            batch.add(client);
+            if (batch.size() == 1000) {
+                clientRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        clientRepository.saveAll(batch);
+        return clientRepository.findAll().stream().mapToLong(Client::getId).toArray();
+    }
+
+    /**
+     * Start the application against a private in-memory H2 database
+     */
+    static ConfigurableApplicationContext startApplication(String databaseName, WebApplicationType webApplicationType,
+                                                           Map<String, Object> overrides) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.h2.console.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        properties.put("server.port", "0");
+        properties.putAll(overrides);
+        // Passed as command-line arguments so they take precedence over application.properties
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(ClientServiceApplication.class)
+                .web(webApplicationType)
+                .run(args);
+    }
+}
@@ -0,0 +1,93 @@
+package tn.pi.clientservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.pi.clientservice.repository.ClientRepository;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyset page requests over HTTP from many concurrent callers. Every request reaches
+ * the database, so the connection pool size bounds the throughput.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class ClientHttpConcurrencyBenchmark {
+
+    @Param({"10000"})
+    private int clientCount;
+
+    @Param({"20"})
+    private int connectionPoolSize;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String baseUrl;
+
+    private String authorization;
+
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = BenchmarkFixtures.startApplication("http-benchmark", WebApplicationType.SERVLET, Map.of(
+                "spring.datasource.hikari.maximum-pool-size", connectionPoolSize));
+        ids = BenchmarkFixtures.seedClients(context.getBean(ClientRepository.class), clientCount);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/clients";
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        // Seeded client 0 is an active administrator; requests then carry its bearer token
+        authorization = "Bearer " + login("client0", "password");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private String login(String username, String password) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(
+                        Map.of("username", username, "password", password))))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("tokens").path("accessToken").asText();
+    }
+
+    @Benchmark
+    public int getClientsPage() throws IOException, InterruptedException {
+        long after = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?after=" + after + "&size=20"))
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            // Count only successful requests; a failure here means the service is shedding load
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,42 @@
+package tn.pi.clientservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping cost per client
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClientMapperBenchmark {
+
+    private final ClientDTOMapper mapper = new ClientDTOMapper();
+
+    private Client client;
+
+    private ClientDTO update;
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkFixtures.client(42);
+        update = BenchmarkFixtures.clientDTO(43);
+    }
+
+    @Benchmark
+    public ClientDTO mapToDTO() {
+        return mapper.mapToDTO(client);
+    }
+
+    @Benchmark
+    public Client updateClientFromDTO() {
+        return mapper.updateClientFromDTO(update, client);
+    }
+}
@@ -0,0 +1,113 @@
+package tn.pi.clientservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ErrorResponse;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.service.ClientService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of answering a lookup for an unknown client id, as scanners probing random ids cause:
+ * the former path (an exception with a stack trace, caught to build a fresh map body) against
+ * an empty Optional answered with an immutable error body. Requests run some hundred frames deep
+ * under the servlet container and filter chain, which the stackDepth parameter reproduces, since
+ * capturing a stack trace costs in proportion to its depth. With query=false the lookup is
+ * replaced by its empty result, isolating the answer path from the database round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientNotFoundBenchmark {
+
+    @Param({"0", "150"})
+    private int stackDepth;
+
+    @Param({"true", "false"})
+    private boolean query;
+
+    private ConfigurableApplicationContext context;
+
+    private ClientService clientService;
+
+    private int firstMissingId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.startApplication("not-found-benchmark", WebApplicationType.NONE, Map.of());
+        clientService = context.getBean(ClientService.class);
+        long[] ids = BenchmarkFixtures.seedClients(context.getBean(ClientRepository.class), 1000);
+        firstMissingId = (int) ids[ids.length - 1] + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object missWithException() {
+        return atDepth(stackDepth, this::exceptionLookup);
+    }
+
+    @Benchmark
+    public Object missWithOptional() {
+        return atDepth(stackDepth, this::optionalLookup);
+    }
+
+    /**
+     * Former controller path: the service throws and the handler builds a body from the exception
+     */
+    private Object exceptionLookup() {
+        int id = missingId();
+        try {
+            ClientDTO client = find(id)
+                    .orElseThrow(() -> new LegacyNotFoundException("Client not found with id: " + id));
+            return client;
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", e.getMessage());
+            return errorResponse;
+        }
+    }
+
+    private Object optionalLookup() {
+        int id = missingId();
+        return find(id)
+                .<Object>map(client -> client)
+                .orElseGet(() -> ErrorResponse.of("Client not found with id: " + id));
+    }
+
+    private Optional<ClientDTO> find(int id) {
+        return query ? clientService.findClientById(id) : Optional.empty();
+    }
+
+    private int missingId() {
+        return firstMissingId + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    private static Object atDepth(int depth, Supplier<Object> lookup) {
+        return depth == 0 ? lookup.get() : atDepth(depth - 1, lookup);
+    }
+
+    /**
+     * ResourceNotFoundException as it was before it stopped capturing stack traces
+     */
+    private static class LegacyNotFoundException extends RuntimeException {
+        LegacyNotFoundException(String message) {
+            super(message);
+        }
+    }
+}
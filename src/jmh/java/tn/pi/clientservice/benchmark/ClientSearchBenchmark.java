@@ -0,0 +1,56 @@
+package tn.pi.clientservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.pi.clientservice.dto.ClientSearchResultDTO;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.index.ClientSearchIndex;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked first page of ClientSearchIndex results, from a selective query to one matching every client
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientSearchBenchmark {
+
+    @Param({"100000"})
+    private int clientCount;
+
+    /**
+     * Username, partial last name, short prefix and a substring of every email
+     */
+    @Param({"client4242", "last123", "fi", "example"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+
+    private ClientSearchIndex clientSearchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.startApplication("search-benchmark", WebApplicationType.NONE, Map.of());
+        clientSearchIndex = context.getBean(ClientSearchIndex.class);
+        // Fed through change events rather than the database, as registrations would
+        for (int i = 1; i <= clientCount; i++) {
+            clientSearchIndex.onClientChanged(ClientChangedEvent.registered(BenchmarkFixtures.clientDTO(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ClientSearchResultDTO search() {
+        return clientSearchIndex.search(query, 0, 20);
+    }
+}
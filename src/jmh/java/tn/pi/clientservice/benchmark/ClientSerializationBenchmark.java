@@ -0,0 +1,56 @@
+package tn.pi.clientservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import tn.pi.clientservice.dto.ClientDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of one client and of client lists, configured like Spring Boot's ObjectMapper
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+
+    private ClientDTO client;
+
+    private List<ClientDTO> clients;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        client = BenchmarkFixtures.clientDTO(1);
+        clients = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            clients.add(BenchmarkFixtures.clientDTO(i));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeClient() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(client);
+    }
+
+    @Benchmark
+    public byte[] serializeClientList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(clients);
+    }
+}
@@ -0,0 +1,92 @@
+package tn.pi.clientservice.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.pi.clientservice.cache.ClientCache;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.service.ClientService;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClientService lookups against an in-memory H2 database, through the cache and straight to the repository
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientServiceBenchmark {
+
+    @Param({"10000"})
+    private int clientCount;
+
+    private ConfigurableApplicationContext context;
+
+    private ClientService clientService;
+
+    private ClientRepository clientRepository;
+
+    private ClientCache clientCache;
+
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.startApplication("service-benchmark", WebApplicationType.NONE, Map.of());
+        clientService = context.getBean(ClientService.class);
+        clientRepository = context.getBean(ClientRepository.class);
+        clientCache = context.getBean(ClientCache.class);
+
+        ids = BenchmarkFixtures.seedClients(clientRepository, clientCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    public ClientDTO getClientByIdCached() {
+        return clientService.findClientById((int) randomId()).orElseThrow();
+    }
+
+    @Benchmark
+    public ClientDTO getClientByIdUncached() {
+        long id = randomId();
+        clientCache.invalidate(id);
+        return clientService.findClientById((int) id).orElseThrow();
+    }
+
+    @Benchmark
+    public ClientDTO getClientByEmail() {
+        return clientService.findClientByEmail("client" + (randomId() % clientCount) + "@example.com").orElseThrow();
+    }
+
+    @Benchmark
+    public ClientDTO getClientByUsername() {
+        return clientService.findClientByUsername("client" + (randomId() % clientCount)).orElseThrow();
+    }
+
+    @Benchmark
+    public Optional<Client> repositoryFindById() {
+        return clientRepository.findById((int) randomId());
+    }
+
+    @Benchmark
+    public ClientPageDTO<ClientDTO> getClientsPage() {
+        return clientService.getClientsPage(randomId(), 50);
+    }
+}
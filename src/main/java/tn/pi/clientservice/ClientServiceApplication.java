@@ -2,12 +2,18 @@ package tn.pi.clientservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import tn.pi.clientservice.export.ClientExportRunner;
 
 @SpringBootApplication
 public class ClientServiceApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(ClientServiceApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(ClientServiceApplication.class, args);
+        // A command-line export has been written by now: stop instead of serving requests
+        if (context.getBeanProvider(ClientExportRunner.class).getIfAvailable() != null) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
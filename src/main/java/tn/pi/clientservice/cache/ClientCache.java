@@ -0,0 +1,186 @@
+package tn.pi.clientservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.pi.clientservice.dto.CacheStatsDTO;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.event.ClientChangedEvent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of clients, reachable by id, email or username.
+ * Entries live once, keyed by id; email and username only point at that id.
+ * Cached DTOs are shared between callers and must be treated as read-only.
+ */
+@Component
+public class ClientCache {
+
+    private final Cache<Long, ClientDTO> clientsById;
+
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Bumped by every invalidation; a load that saw it move does not leave its result cached
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final long maximumSize;
+
+    public ClientCache(@Value("${client.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${client.cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds,
+                       MeterRegistry meterRegistry) {
+        this.maximumSize = maximumSize;
+        // Caffeine admits by W-TinyLFU, so one-off lookups do not push out hot clients
+        this.clientsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .evictionListener((Long id, ClientDTO client, RemovalCause cause) ->
+                        unindex(id, client))
+                .recordStats()
+                .build();
+        // Exported as cache.* meters tagged cache=clients
+        CaffeineCacheMetrics.monitor(meterRegistry, clientsById, "clients");
+    }
+
+    /**
+     * Get a client by id, loading and caching it on a miss
+     */
+    public Optional<ClientDTO> getById(Long id, Function<Long, Optional<ClientDTO>> loader) {
+        ClientDTO cached = clientsById.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        long seen = invalidations.get();
+        Optional<ClientDTO> loaded = loader.apply(id);
+        loaded.ifPresent(client -> putIfCurrent(client, seen));
+        return loaded;
+    }
+
+    /**
+     * Get a client by email, loading and caching it on a miss
+     */
+    public Optional<ClientDTO> getByEmail(String email, Supplier<Optional<ClientDTO>> loader) {
+        return getBySecondaryKey(idsByEmail, email, ClientDTO::getEmail, loader);
+    }
+
+    /**
+     * Get a client by username, loading and caching it on a miss
+     */
+    public Optional<ClientDTO> getByUsername(String username, Supplier<Optional<ClientDTO>> loader) {
+        return getBySecondaryKey(idsByUsername, username, ClientDTO::getUsername, loader);
+    }
+
+    /**
+     * Drop a client from the cache under all of its keys
+     */
+    public void invalidate(Long id) {
+        invalidations.incrementAndGet();
+        ClientDTO removed = clientsById.asMap().remove(id);
+        if (removed != null) {
+            unindex(id, removed);
+        }
+    }
+
+    /**
+     * Drop a changed client once the change commits, so a concurrent read cannot re-cache the old state
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientChanged(ClientChangedEvent event) {
+        invalidate(event.getClientId());
+    }
+
+    /**
+     * Drop every cached client
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        clientsById.invalidateAll();
+        idsByEmail.clear();
+        idsByUsername.clear();
+    }
+
+    /**
+     * Hit, miss and eviction counters
+     */
+    public CacheStatsDTO stats() {
+        CacheStats stats = clientsById.stats();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        return CacheStatsDTO.builder()
+                .estimatedSize(clientsById.estimatedSize())
+                .maximumSize(maximumSize)
+                .hitCount(hitCount)
+                .missCount(missCount)
+                .hitRate(requests == 0 ? 0.0 : (double) hitCount / requests)
+                .evictionCount(stats.evictionCount())
+                .build();
+    }
+
+    private Optional<ClientDTO> getBySecondaryKey(Map<String, Long> index, String key,
+                                                  Function<ClientDTO, String> keyOf,
+                                                  Supplier<Optional<ClientDTO>> loader) {
+        Long id = index.get(key);
+        if (id != null) {
+            ClientDTO cached = clientsById.getIfPresent(id);
+            if (cached != null && key.equals(keyOf.apply(cached))) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+        }
+        misses.increment();
+        long seen = invalidations.get();
+        Optional<ClientDTO> loaded = loader.get();
+        loaded.ifPresent(client -> putIfCurrent(client, seen));
+        return loaded;
+    }
+
+    /**
+     * Cache a loaded client unless it may predate an invalidation made while it was loading. The
+     * check follows the put: an invalidation that came first is seen and undone here, one that
+     * comes after removes the entry itself.
+     */
+    private void putIfCurrent(ClientDTO client, long seen) {
+        put(client);
+        if (invalidations.get() != seen && clientsById.asMap().remove(client.getId(), client)) {
+            unindex(client.getId(), client);
+        }
+    }
+
+    private void put(ClientDTO client) {
+        clientsById.put(client.getId(), client);
+        idsByEmail.put(client.getEmail(), client.getId());
+        idsByUsername.put(client.getUsername(), client.getId());
+    }
+
+    private void unindex(Long id, ClientDTO client) {
+        if (client == null) {
+            return;
+        }
+        idsByEmail.remove(client.getEmail(), id);
+        idsByUsername.remove(client.getUsername(), id);
+    }
+}
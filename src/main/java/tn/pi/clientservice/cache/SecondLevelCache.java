@@ -0,0 +1,92 @@
+package tn.pi.clientservice.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tn.pi.clientservice.dto.CacheRegionStatsDTO;
+import tn.pi.clientservice.dto.ClientChangeDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.event.ClientChangesRelayedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Hibernate second-level cache regions holding clients. Hibernate keeps them current for
+ * this instance's own writes; with cluster invalidation on, changes other instances commit are
+ * dropped as the outbox relay reads them, together with the matching client cache entries.
+ */
+@Component
+public class SecondLevelCache {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ClientCache clientCache;
+
+    @Value("${client.cache.second-level.cluster-invalidation:false}")
+    private boolean clusterInvalidation;
+
+    /**
+     * Evict the changed clients. A renamed client's old username or email is not in the outbox,
+     * so the username and email resolutions are dropped as a whole.
+     */
+    @EventListener
+    public void onChangesRelayed(ClientChangesRelayedEvent event) {
+        if (!clusterInvalidation) {
+            return;
+        }
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (ClientChangeDTO change : event.getChanges()) {
+            cache.evictEntityData(Client.class, change.getClientId());
+            clientCache.invalidate(change.getClientId());
+        }
+        cache.evictNaturalIdData(Client.class);
+        cache.evictQueryRegion(Client.EMAIL_QUERY_CACHE_REGION);
+    }
+
+    /**
+     * Hit, miss and put counters per region
+     */
+    public List<CacheRegionStatsDTO> stats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionStatsDTO> regions = new ArrayList<>();
+        for (String region : List.of(Client.CACHE_REGION, Client.NATURAL_ID_CACHE_REGION)) {
+            regions.add(toDTO(region, domainDataRegionStatistics(statistics, region)));
+        }
+        regions.add(toDTO(Client.EMAIL_QUERY_CACHE_REGION,
+                statistics.getQueryRegionStatistics(Client.EMAIL_QUERY_CACHE_REGION)));
+        return regions;
+    }
+
+    private static CacheRegionStatistics domainDataRegionStatistics(Statistics statistics, String region) {
+        try {
+            return statistics.getDomainDataRegionStatistics(region);
+        } catch (IllegalArgumentException e) {
+            // No such region while the second-level cache is disabled
+            return null;
+        }
+    }
+
+    private static CacheRegionStatsDTO toDTO(String region, CacheRegionStatistics statistics) {
+        if (statistics == null) {
+            // Query regions appear on first use; none exist while caching is off
+            return CacheRegionStatsDTO.builder().region(region).build();
+        }
+        long requests = statistics.getHitCount() + statistics.getMissCount();
+        return CacheRegionStatsDTO.builder()
+                .region(region)
+                .hitCount(statistics.getHitCount())
+                .missCount(statistics.getMissCount())
+                .putCount(statistics.getPutCount())
+                .hitRate(requests == 0 ? 0.0 : (double) statistics.getHitCount() / requests)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package tn.pi.clientservice.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.service.ClientService;
+
+/**
+ * Creates the first administrator account at startup when one is configured and does
+ * not exist yet. Administration endpoints need an ADMIN token, and self-registration
+ * only creates plain clients, so a fresh database needs this (or a manual insert).
+ */
+@Component
+public class AdminBootstrap {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminBootstrap.class);
+
+    @Autowired
+    private ClientService clientService;
+
+    @Value("${client.security.bootstrap-admin.username:}")
+    private String username;
+
+    @Value("${client.security.bootstrap-admin.email:}")
+    private String email;
+
+    @Value("${client.security.bootstrap-admin.password:}")
+    private String password;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (username.isBlank() || password.isBlank() || clientService.usernameExists(username)) {
+            return;
+        }
+        ClientDTO admin = new ClientDTO("System", "Administrator",
+                email.isBlank() ? username + "@localhost" : email, username, password);
+        admin.setRole(UserRole.ADMIN);
+        clientService.registerClient(admin);
+        log.info("Created bootstrap administrator '{}'", username);
+    }
+}
@@ -0,0 +1,12 @@
+package tn.pi.clientservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the periodic maintenance jobs (statistics reconciliation and the like)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,73 @@
+package tn.pi.clientservice.config;
+
+import com.github.benmanes.caffeine.jcache.CacheManagerImpl;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tn.pi.clientservice.entities.Client;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache held in local Caffeine regions through JCache. Each application
+ * context gets its own cache manager, so regions are never shared between contexts in one JVM.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${client.cache.second-level.enabled:true}")
+    private boolean enabled;
+
+    @Value("${client.cache.second-level.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${client.cache.second-level.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    @Bean(destroyMethod = "close")
+    @Qualifier("hibernateCacheManager")
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = new CacheManagerImpl(provider, false, provider.getDefaultURI(),
+                provider.getDefaultClassLoader(), new Properties());
+        for (String region : List.of(Client.CACHE_REGION, Client.NATURAL_ID_CACHE_REGION,
+                Client.EMAIL_QUERY_CACHE_REGION, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(expireAfterWriteSeconds)));
+            cacheManager.createCache(region, configuration);
+        }
+        // Last write time per table, checked before using any cached query result: never evicted
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    /**
+     * Statistics feed the per-region hibernate.second.level.cache.* meters and /admin/cache/regions
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(
+            @Qualifier("hibernateCacheManager") CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
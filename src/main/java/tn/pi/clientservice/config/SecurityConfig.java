@@ -1,15 +1,30 @@
 package tn.pi.clientservice.config;
 
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import tn.pi.clientservice.security.TokenService;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
@@ -18,11 +33,49 @@ import java.util.List;
 public class SecurityConfig {
 
     /**
-     * Password encoder bean - using BCrypt
+     * Password encoder bean - using BCrypt with a configurable work factor
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${client.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * HMAC key signing the bearer tokens; HS256 needs at least 256 bits
+     */
+    @Bean
+    public SecretKey jwtSecretKey(@Value("${jwt.secret}") String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("jwt.secret must be at least 32 bytes long");
+        }
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder(SecretKey jwtSecretKey) {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(jwtSecretKey));
+    }
+
+    /**
+     * Verifies access tokens on every request: signature, issuer, expiry and token type
+     */
+    @Bean
+    public JwtDecoder jwtDecoder(SecretKey jwtSecretKey, @Value("${jwt.issuer:client-service}") String issuer) {
+        return TokenService.decoder(jwtSecretKey, issuer, TokenService.ACCESS);
+    }
+
+    /**
+     * Maps the roles claim to ROLE_ authorities; the principal name is the client id (subject)
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(TokenService.ROLES_CLAIM);
+        authorities.setAuthorityPrefix("ROLE_");
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        return converter;
     }
 
     /**
@@ -30,19 +83,29 @@ public class SecurityConfig {
      */
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        // Clients may read and update their own record; paths are relative to the /api context path
+        WebExpressionAuthorizationManager selfOrAdmin =
+                new WebExpressionAuthorizationManager("hasRole('ADMIN') or #id == authentication.name");
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
                         // Public endpoints
-                        .requestMatchers("/api/clients/register").permitAll()
-                        .requestMatchers("/api/clients/login").permitAll()
-                        .requestMatchers("/api/clients/email/**").permitAll()
-                        .requestMatchers("/api/clients/username/**").permitAll()
-                        // All other endpoints require authentication
-                        .anyRequest().authenticated()
+                        .requestMatchers(HttpMethod.POST, "/clients/register", "/clients/login", "/clients/refresh").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/clients/email/*/exists", "/clients/username/*/exists").permitAll()
+                        // Health checks and Prometheus scrapes (restrict at the network level)
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/clients/{id:\\d+}").access(selfOrAdmin)
+                        .requestMatchers(HttpMethod.PUT, "/clients/{id:\\d+}").access(selfOrAdmin)
+                        .requestMatchers(HttpMethod.PATCH, "/clients/{id:\\d+}").access(selfOrAdmin)
+                        .requestMatchers(HttpMethod.POST, "/clients/change-password/{id:\\d+}").access(selfOrAdmin)
+                        // Everything else is administration, lookups by email or username included: they return
+                        // the whole record, so only the exists checks above are public
+                        .anyRequest().hasRole("ADMIN")
                 )
-                .httpBasic(basic -> {});
+                // Bearer tokens only: checking one costs a signature verification, not a BCrypt match
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
 
         return http.build();
     }
@@ -54,7 +117,7 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("*"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
         configuration.setMaxAge(3600L);
 
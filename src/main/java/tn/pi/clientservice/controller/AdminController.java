@@ -0,0 +1,96 @@
+package tn.pi.clientservice.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tn.pi.clientservice.cache.ClientCache;
+import tn.pi.clientservice.cache.SecondLevelCache;
+import tn.pi.clientservice.dto.CacheRegionStatsDTO;
+import tn.pi.clientservice.dto.CacheStatsDTO;
+import tn.pi.clientservice.dto.PasswordHashingStatsDTO;
+import tn.pi.clientservice.dto.SearchIndexStatsDTO;
+import tn.pi.clientservice.dto.UniquenessIndexStatsDTO;
+import tn.pi.clientservice.index.ClientSearchIndex;
+import tn.pi.clientservice.index.UniquenessIndex;
+import tn.pi.clientservice.service.PasswordHashingService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class AdminController {
+
+    @Autowired
+    private ClientCache clientCache;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private UniquenessIndex uniquenessIndex;
+
+    @Autowired
+    private ClientSearchIndex clientSearchIndex;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    /**
+     * GET /cache - Client cache hit, miss and eviction counters
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<CacheStatsDTO> getCacheStats() {
+        return ResponseEntity.ok(clientCache.stats());
+    }
+
+    /**
+     * GET /cache/regions - Hibernate second-level cache counters per region
+     */
+    @GetMapping("/cache/regions")
+    public ResponseEntity<List<CacheRegionStatsDTO>> getCacheRegionStats() {
+        return ResponseEntity.ok(secondLevelCache.stats());
+    }
+
+    /**
+     * GET /password-hashing - Hashing pool queue depth and latency
+     */
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStatsDTO> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordHashingService.stats());
+    }
+
+    /**
+     * GET /uniqueness-index - Email/username filter size and false-positive counters
+     */
+    @GetMapping("/uniqueness-index")
+    public ResponseEntity<UniquenessIndexStatsDTO> getUniquenessIndexStats() {
+        return ResponseEntity.ok(uniquenessIndex.stats());
+    }
+
+    /**
+     * POST /uniqueness-index/rebuild - Rebuild the email/username filter from the database
+     */
+    @PostMapping("/uniqueness-index/rebuild")
+    public ResponseEntity<UniquenessIndexStatsDTO> rebuildUniquenessIndex() {
+        uniquenessIndex.rebuild();
+        return ResponseEntity.ok(uniquenessIndex.stats());
+    }
+
+    /**
+     * GET /search-index - Client search index size and stale postings
+     */
+    @GetMapping("/search-index")
+    public ResponseEntity<SearchIndexStatsDTO> getSearchIndexStats() {
+        return ResponseEntity.ok(clientSearchIndex.stats());
+    }
+
+    /**
+     * POST /search-index/rebuild - Rebuild the client search index from the database
+     */
+    @PostMapping("/search-index/rebuild")
+    public ResponseEntity<SearchIndexStatsDTO> rebuildSearchIndex() {
+        clientSearchIndex.rebuild();
+        return ResponseEntity.ok(clientSearchIndex.stats());
+    }
+}
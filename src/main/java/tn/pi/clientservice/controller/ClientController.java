@@ -1,16 +1,41 @@
 package tn.pi.clientservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.pi.clientservice.dto.BatchRegistrationResultDTO;
 import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientLookupDTO;
+import tn.pi.clientservice.dto.ClientLookupResultDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.dto.ClientSearchResultDTO;
+import tn.pi.clientservice.dto.ClientStatsDTO;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
+import tn.pi.clientservice.dto.ErrorResponse;
 import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.ExportFormat;
 import tn.pi.clientservice.enums.UserRole;
 import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.exception.PreconditionFailedException;
+import tn.pi.clientservice.exception.ServiceUnavailableException;
+import tn.pi.clientservice.export.ClientExporter;
+import tn.pi.clientservice.outbox.ClientChangeRelay;
+import tn.pi.clientservice.security.TokenService;
+import tn.pi.clientservice.service.BatchRegistrationService;
 import tn.pi.clientservice.service.ClientService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,34 +49,68 @@ import static org.springframework.util.MimeTypeUtils.APPLICATION_JSON_VALUE;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class ClientController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * Single-client responses may be stored but must be revalidated with If-None-Match
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private static final ErrorResponse CREDENTIALS_REQUIRED = ErrorResponse.of("Username and password are required");
+
+    private static final ErrorResponse REFRESH_TOKEN_REQUIRED = ErrorResponse.of("Refresh token is required");
+
+    private static final ErrorResponse PASSWORDS_REQUIRED = ErrorResponse.of("Old password and new password are required");
+
     @Autowired
     private ClientService clientService;
 
+    @Autowired
+    private BatchRegistrationService batchRegistrationService;
+
+    @Autowired
+    private ClientChangeRelay clientChangeRelay;
+
+    @Autowired
+    private ClientExporter clientExporter;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * POST /register - Register a new client
      */
     @PostMapping("/register")
-    public ResponseEntity<?> registerClient(@Valid @RequestBody ClientDTO clientDTO) {
-        try {
-            ClientDTO registeredClient = clientService.registerClient(clientDTO);
+    public ResponseEntity<?> registerClient(@Valid @RequestBody ClientDTO clientDTO, Authentication authentication) {
+        // Self-registration always creates a plain client; only administrators choose the role
+        if (!isAdmin(authentication)) {
+            clientDTO.setRole(UserRole.CLIENT);
+        }
+        ClientDTO registeredClient = clientService.registerClient(clientDTO);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Client registered successfully");
-            response.put("user", registeredClient);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Client registered successfully");
+        response.put("user", registeredClient);
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
 
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+    /**
+     * POST /register/batch - Register many clients at once, with one result per client
+     */
+    @PostMapping("/register/batch")
+    public ResponseEntity<BatchRegistrationResultDTO> registerClients(@RequestBody List<ClientDTO> clientDTOs) {
+        return ResponseEntity.ok(batchRegistrationService.registerClients(clientDTOs));
     }
 
     /**
-     * GET /login - Authenticate user (basic example)
+     * POST /login - Verify credentials once and issue a bearer token pair
      */
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody Map<String, String> loginRequest) {
@@ -59,91 +118,186 @@ public class ClientController {
         String password = loginRequest.get("password");
 
         if (username == null || password == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Username and password are required");
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(CREDENTIALS_REQUIRED);
         }
 
-        try {
-            ClientDTO client = clientService.getClientByUsername(username);
+        ClientDTO client = clientService.authenticate(username, password);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Login successful");
-            response.put("user", client);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Login successful");
+        response.put("user", client);
+        response.put("tokens", tokenService.issue(client));
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "Invalid credentials");
+        return ResponseEntity.ok(response);
+    }
 
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+    /**
+     * POST /refresh - Exchange a refresh token for a new token pair
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> refreshRequest) {
+        String refreshToken = refreshRequest.get("refreshToken");
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(REFRESH_TOKEN_REQUIRED);
         }
+
+        return ResponseEntity.ok(tokenService.refresh(refreshToken));
     }
 
     /**
      * GET /{id} - Get client by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getClientById(@PathVariable Integer id) {
-        try {
-            ClientDTO client = clientService.getClientById(id);
-            return ResponseEntity.ok(client);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-        }
+    public ResponseEntity<?> getClientById(@PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return clientService.findClientById(id)
+                .<ResponseEntity<?>>map(client -> conditionalResponse(client, ifNoneMatch))
+                .orElseGet(() -> notFound("Client not found with id: " + id));
+    }
+
+    /**
+     * POST /lookup - Get many clients at once by id, email or username
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<ClientLookupResultDTO> lookupClients(@RequestBody ClientLookupDTO lookup) {
+        return ResponseEntity.ok(clientService.lookupClients(lookup));
     }
 
     /**
      * GET /email/{email} - Get client by email
      */
     @GetMapping("/email/{email}")
-    public ResponseEntity<?> getClientByEmail(@PathVariable String email) {
-        try {
-            ClientDTO client = clientService.getClientByEmail(email);
-            return ResponseEntity.ok(client);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-        }
+    public ResponseEntity<?> getClientByEmail(@PathVariable String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return clientService.findClientByEmail(email)
+                .<ResponseEntity<?>>map(client -> conditionalResponse(client, ifNoneMatch))
+                .orElseGet(() -> notFound("Client not found with email: " + email));
+    }
+
+    /**
+     * GET /email/{email}/exists - Check whether an email is already taken
+     */
+    @GetMapping("/email/{email}/exists")
+    public ResponseEntity<?> emailExists(@PathVariable String email) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("exists", clientService.emailExists(email));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * GET /username/{username}/exists - Check whether a username is already taken
+     */
+    @GetMapping("/username/{username}/exists")
+    public ResponseEntity<?> usernameExists(@PathVariable String username) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("exists", clientService.usernameExists(username));
+        return ResponseEntity.ok(response);
     }
 
     /**
      * GET /username/{username} - Get client by username
      */
     @GetMapping("/username/{username}")
-    public ResponseEntity<?> getClientByUsername(@PathVariable String username) {
-        try {
-            ClientDTO client = clientService.getClientByUsername(username);
-            return ResponseEntity.ok(client);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-        }
+    public ResponseEntity<?> getClientByUsername(@PathVariable String username,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return clientService.findClientByUsername(username)
+                .<ResponseEntity<?>>map(client -> conditionalResponse(client, ifNoneMatch))
+                .orElseGet(() -> notFound("Client not found with username: " + username));
     }
 
     /**
-     * GET / - Get all clients
+     * GET / - Get all clients, or one page of them when a cursor or page size is given
      */
     @GetMapping
-    public ResponseEntity<?> getAllClients() {
+    public ResponseEntity<?> getAllClients(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        if (after != null || size != null) {
+            return ResponseEntity.ok(clientService.getClientsPage(after, size));
+        }
+        List<ClientDTO> clients = clientService.getAllClients();
+        return ResponseEntity.ok(clients);
+    }
+
+    /**
+     * GET /stats - Client counts by role, status and registration day, without querying the database
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ClientStatsDTO> getClientStats(@RequestParam(required = false) Integer days) {
+        return ResponseEntity.ok(clientService.getClientStats(days));
+    }
+
+    /**
+     * GET /search?q= - Ranked search on partial name, email or username, served from the in-memory index
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ClientSearchResultDTO> searchClients(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(clientService.searchClients(q, page, size));
+    }
+
+    /**
+     * GET /stream - Stream all clients as newline-delimited JSON
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllClients() {
+        StreamingResponseBody body = outputStream -> {
+            try {
+                clientService.streamAllClients(client -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(client));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * GET /export?format=csv|ndjson&gzip= - Download every client, streamed from a database cursor
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportClients(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        String filename = "clients." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = outputStream -> clientExporter.export(exportFormat, gzip, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * GET /changes - Server-Sent Events stream of committed client changes.
+     * Resumes after the offset in Last-Event-ID (set by reconnecting clients) or ?after=, else starts from now.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @RequestParam(required = false) Long after) {
         try {
-            List<ClientDTO> clients = clientService.getAllClients();
-            return ResponseEntity.ok(clients);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            Long offset = lastEventId != null && !lastEventId.isBlank() ? Long.valueOf(lastEventId.trim()) : after;
+            return ResponseEntity.ok(clientChangeRelay.subscribe(offset));
+        } catch (IllegalArgumentException e) {
+            // The emitter response carries no error body
+            return ResponseEntity.badRequest().build();
+        } catch (ServiceUnavailableException e) {
+            // Nor does the 503, which the global handler would answer with a JSON body
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
         }
     }
 
@@ -151,16 +305,32 @@ public class ClientController {
      * PUT /{id} - Update client
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateClient(@PathVariable Integer id, @Valid @RequestBody ClientDTO clientDTO) {
-        try {
-            ClientDTO updatedClient = clientService.updateClient(id, clientDTO);
-            return ResponseEntity.ok(updatedClient);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    public ResponseEntity<ClientDTO> updateClient(@PathVariable Integer id, @Valid @RequestBody ClientDTO clientDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication authentication) {
+        // Clients editing their own record cannot change their role or status
+        if (!isAdmin(authentication)) {
+            clientDTO.setRole(null);
+            clientDTO.setStatus(null);
         }
+        ClientDTO updatedClient = clientService.updateClient(id, clientDTO, expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(etagOf(updatedClient)).body(updatedClient);
+    }
+
+    /**
+     * PATCH /{id} - Update only the fields present in the body
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<ClientDTO> patchClient(@PathVariable Integer id, @Valid @RequestBody ClientPatchDTO patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            Authentication authentication) {
+        // Clients editing their own record cannot change their role or status
+        if (!isAdmin(authentication)) {
+            patch.setRole(null);
+            patch.setStatus(null);
+        }
+        ClientDTO patchedClient = clientService.patchClient(id, patch, expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(etagOf(patchedClient)).body(patchedClient);
     }
 
     /**
@@ -168,50 +338,41 @@ public class ClientController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteClient(@PathVariable Integer id) {
-        try {
-            clientService.deleteClient(id);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Client deleted successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-        }
+        clientService.deleteClient(id);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Client deleted successfully");
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * GET /role/{role} - Get all clients by role
+     * GET /role/{role} - Get all clients by role, or one page of them when a cursor or page size is given
      */
     @GetMapping("/role/{role}")
-    public ResponseEntity<?> getClientsByRole(@PathVariable UserRole role) {
-        try {
-            List<ClientDTO> clients = clientService.getClientsByRole(role);
-            return ResponseEntity.ok(clients);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    public ResponseEntity<?> getClientsByRole(
+            @PathVariable UserRole role,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        if (after != null || size != null) {
+            return ResponseEntity.ok(clientService.getClientsByRolePage(role, after, size));
         }
+        List<ClientSummaryDTO> clients = clientService.getClientsByRole(role);
+        return ResponseEntity.ok(clients);
     }
 
     /**
-     * GET /status/{status} - Get all clients by status
+     * GET /status/{status} - Get all clients by status, or one page of them when a cursor or page size is given
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<?> getClientsByStatus(@PathVariable UserStatus status) {
-        try {
-            List<ClientDTO> clients = clientService.getClientsByStatus(status);
-            return ResponseEntity.ok(clients);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+    public ResponseEntity<?> getClientsByStatus(
+            @PathVariable UserStatus status,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        if (after != null || size != null) {
+            return ResponseEntity.ok(clientService.getClientsByStatusPage(status, after, size));
         }
+        List<ClientSummaryDTO> clients = clientService.getClientsByStatus(status);
+        return ResponseEntity.ok(clients);
     }
 
     /**
@@ -221,29 +382,76 @@ public class ClientController {
     public ResponseEntity<?> changePassword(
             @PathVariable Integer id,
             @RequestBody Map<String, String> passwordRequest) {
-        try {
-            String oldPassword = passwordRequest.get("oldPassword");
-            String newPassword = passwordRequest.get("newPassword");
-
-            if (oldPassword == null || newPassword == null) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("success", false);
-                errorResponse.put("message", "Old password and new password are required");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        String oldPassword = passwordRequest.get("oldPassword");
+        String newPassword = passwordRequest.get("newPassword");
+
+        if (oldPassword == null || newPassword == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(PASSWORDS_REQUIRED);
+        }
+
+        clientService.changePassword(id, oldPassword, newPassword);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Password changed successfully");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 404 for a lookup that found nothing, answered without an exception
+     */
+    private static ResponseEntity<?> notFound(String message) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ErrorResponse.of(message));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    /**
+     * Strong entity tag of a client's state; it changes with every update and differs between clients
+     */
+    private static String etagOf(ClientDTO client) {
+        return "\"" + client.getId() + "-" + client.getVersion() + "\"";
+    }
+
+    /**
+     * 304 with no body when the caller already holds the current state, otherwise the client and its ETag
+     */
+    private static ResponseEntity<?> conditionalResponse(ClientDTO client, String ifNoneMatch) {
+        String etag = etagOf(client);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                // If-None-Match uses the weak comparison
+                if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+                }
             }
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(client);
+    }
 
-            clientService.changePassword(id, oldPassword, newPassword);
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Password changed successfully");
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    /**
+     * Version that an If-Match header requires the client to be at: null when absent or "*"
+     */
+    private static Long expectedVersion(String ifMatch, Integer id) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
         }
+        String prefix = "\"" + id + "-";
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            // If-Match uses the strong comparison, so weak tags never match
+            if (candidate.startsWith(prefix) && candidate.endsWith("\"") && candidate.length() > prefix.length() + 1) {
+                try {
+                    return Long.valueOf(candidate.substring(prefix.length(), candidate.length() - 1));
+                } catch (NumberFormatException e) {
+                    // Not one of our tags
+                }
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not name a version of client " + id);
     }
 }
-
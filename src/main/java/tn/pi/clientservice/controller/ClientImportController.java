@@ -0,0 +1,79 @@
+package tn.pi.clientservice.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import tn.pi.clientservice.dto.ClientImportDTO;
+import tn.pi.clientservice.dto.ClientImportErrorDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.dto.ErrorResponse;
+import tn.pi.clientservice.service.ClientImportService;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/clients/imports")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ClientImportController {
+
+    @Autowired
+    private ClientImportService clientImportService;
+
+    /**
+     * POST / - Upload a CSV file (multipart field "file") and import it in the background
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ClientImportDTO> startImport(@RequestParam("file") MultipartFile file) throws IOException {
+        ClientImportDTO job = clientImportService.submit(file);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.getId()).toUri())
+                .body(job);
+    }
+
+    /**
+     * GET / - All imports, most recent first
+     */
+    @GetMapping
+    public ResponseEntity<List<ClientImportDTO>> getImports() {
+        return ResponseEntity.ok(clientImportService.getImports());
+    }
+
+    /**
+     * GET /{id} - Progress of an import
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable Long id) {
+        return clientImportService.findImport(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ErrorResponse.of("Import not found with id: " + id)));
+    }
+
+    /**
+     * GET /{id}/errors?after=&size= - Rejected rows, paged by error id
+     */
+    @GetMapping("/{id}/errors")
+    public ResponseEntity<ClientPageDTO<ClientImportErrorDTO>> getImportErrors(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(clientImportService.getErrors(id, after, size));
+    }
+
+    /**
+     * POST /{id}/resume - Continue a failed import from its last checkpoint
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable Long id) {
+        try {
+            return ResponseEntity.accepted().body(clientImportService.resume(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ErrorResponse.of(e.getMessage()));
+        }
+    }
+}
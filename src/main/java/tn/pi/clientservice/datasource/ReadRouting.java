@@ -0,0 +1,38 @@
+package tn.pi.clientservice.datasource;
+
+/**
+ * Routing state of the request on the current thread. Once the request has taken a primary
+ * connection (to write, or to read outside a read-only transaction), its later read-only
+ * transactions stay on the primary too, so it reads its own writes.
+ */
+public final class ReadRouting {
+
+    /**
+     * Null outside a request, else whether the request is pinned to the primary
+     */
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    static void beginRequest() {
+        PINNED.set(Boolean.FALSE);
+    }
+
+    static void endRequest() {
+        PINNED.remove();
+    }
+
+    static void primaryUsed() {
+        if (PINNED.get() != null) {
+            PINNED.set(Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Whether the current request has used the primary, so its reads must stay there too
+     */
+    public static boolean pinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+}
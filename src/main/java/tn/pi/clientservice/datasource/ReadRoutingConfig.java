@@ -0,0 +1,87 @@
+package tn.pi.clientservice.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool when read routing is enabled. The application's
+ * DataSource defers taking a physical connection until the first statement, by which time the
+ * transaction has marked it read-only or not: read-only transactions get a replica connection,
+ * everything else (writes, Flyway, non-transactional reads) the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "client.datasource.read-routing.enabled", havingValue = "true")
+public class ReadRoutingConfig {
+
+    /**
+     * The primary pool, configured from spring.datasource.* as the auto-configured one would be.
+     * It is named up front (unless spring.datasource.hikari.pool-name says otherwise) because the
+     * replica pools and the metrics are named after it before it starts.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                                      DataSourceProperties dataSourceProperties,
+                                                      ReadRoutingProperties properties, MeterRegistry meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReadRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            // Same pool settings as the primary, pointed at the replica
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setPoolName(primary.getPoolName() + "-replica-" + (i + 1));
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername() != null ? replica.getUsername() : dataSourceProperties.determineUsername());
+            config.setPassword(replica.getPassword() != null ? replica.getPassword() : dataSourceProperties.determinePassword());
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            // Start without a connection, so an unreachable replica does not stop the application
+            config.setInitializationFailTimeout(-1);
+            pools.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, primary.getPoolName(), pools, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaRoutingDataSource replicaDataSource, MeterRegistry meterRegistry) {
+        Counter primaryConnections = ReplicaRoutingDataSource.connectionCounter(meterRegistry, primary.getPoolName(), "write");
+        DataSource pinningPrimary = new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                ReadRouting.primaryUsed();
+                primaryConnections.increment();
+                return super.getConnection();
+            }
+        };
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(pinningPrimary);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
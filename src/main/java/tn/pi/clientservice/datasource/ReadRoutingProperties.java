@@ -0,0 +1,44 @@
+package tn.pi.clientservice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas serving read-only transactions, bound from client.datasource.read-routing.*
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "client.datasource.read-routing")
+public class ReadRoutingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Replicas whose copy of the primary's heartbeat is older than this are skipped
+     */
+    private long maxLagMs = 5000;
+
+    /**
+     * Heartbeat and lag probe period; lag is measured with this resolution
+     */
+    private long lagCheckIntervalMs = 1000;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * Credentials, defaulting to the primary's (spring.datasource.*)
+         */
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,80 @@
+package tn.pi.clientservice.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Stamps a heartbeat row on the primary and checks how far each replica's copy of it trails the
+ * primary's. Every instance stamps the same row, and each round compares against the latest stamp
+ * before writing its own, so lag is measured with the resolution of the check interval. A replica
+ * that cannot be queried, or trails by more than the threshold, is skipped until a later check
+ * finds it caught up.
+ */
+@Component
+@ConditionalOnProperty(name = "client.datasource.read-routing.enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String SELECT_BEAT = "select beat_ms from client_heartbeat where id = 1";
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    @Autowired
+    private ReadRoutingProperties properties;
+
+    @Scheduled(fixedDelayString = "${client.datasource.read-routing.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        long stamped;
+        try {
+            stamped = primary.queryForObject(SELECT_BEAT, Long.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the replication heartbeat: {}", e.getMessage());
+            return;
+        }
+        for (ReplicaRoutingDataSource.Replica replica : replicaDataSource.getReplicas()) {
+            check(replica, stamped);
+        }
+        try {
+            primary.update("update client_heartbeat set beat_ms = ? where id = 1", System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("Could not write the replication heartbeat: {}", e.getMessage());
+        }
+    }
+
+    private void check(ReplicaRoutingDataSource.Replica replica, long stamped) {
+        boolean wasHealthy = replica.healthy;
+        try {
+            long seen = new JdbcTemplate(replica.dataSource).queryForObject(SELECT_BEAT, Long.class);
+            double lag = Math.max(0, stamped - seen);
+            replica.lagMillis = lag;
+            replica.healthy = lag <= properties.getMaxLagMs();
+        } catch (DataAccessException e) {
+            replica.lagMillis = Double.NaN;
+            replica.healthy = false;
+            if (wasHealthy) {
+                log.warn("Read replica {} failed its lag check: {}", replica.name(), e.getMessage());
+            }
+            return;
+        }
+        if (wasHealthy != replica.healthy) {
+            log.info("Read replica {} {} ({} ms behind)", replica.name(),
+                    replica.healthy ? "serves reads" : "is skipped", Math.round(replica.lagMillis));
+        }
+    }
+}
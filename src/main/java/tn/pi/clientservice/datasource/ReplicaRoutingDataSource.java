@@ -0,0 +1,123 @@
+package tn.pi.clientservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connections for read-only transactions: taken round-robin from the replicas that are
+ * currently within the lag threshold, or from the primary when none is, or when the
+ * request is pinned there after a write.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter primaryReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, String primaryName, List<HikariDataSource> replicaPools,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(pool -> new Replica(pool, meterRegistry)).toList();
+        this.primaryReads = connectionCounter(meterRegistry, primaryName, "read");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadRouting.pinnedToPrimary()) {
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    // Skipped until the next lag check finds it reachable again
+                    replica.healthy = false;
+                    log.warn("Read replica {} is unreachable, reading elsewhere: {}", replica.name(), e.getMessage());
+                }
+            }
+        }
+        Connection connection = primary.getConnection();
+        primaryReads.increment();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Replica connections use the configured credentials");
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    static Counter connectionCounter(MeterRegistry meterRegistry, String dataSource, String access) {
+        return Counter.builder("client.datasource.connections")
+                .description("Connections handed out, by pool and by read-only or read-write use")
+                .tag("datasource", dataSource)
+                .tag("access", access)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One replica pool and what the last lag check found
+     */
+    static final class Replica {
+
+        final HikariDataSource dataSource;
+
+        final Counter reads;
+
+        /**
+         * Unknown until the first lag check
+         */
+        volatile boolean healthy;
+
+        volatile double lagMillis = Double.NaN;
+
+        Replica(HikariDataSource dataSource, MeterRegistry meterRegistry) {
+            this.dataSource = dataSource;
+            this.reads = connectionCounter(meterRegistry, name(), "read");
+            Gauge.builder("client.datasource.replica.lag", this, replica -> replica.lagMillis / 1000.0)
+                    .description("How far the replica's copy of the primary heartbeat trailed it at the last check")
+                    .baseUnit("seconds")
+                    .tag("datasource", name())
+                    .register(meterRegistry);
+            Gauge.builder("client.datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                    .description("1 while the replica serves reads, 0 while it is skipped")
+                    .tag("datasource", name())
+                    .register(meterRegistry);
+        }
+
+        String name() {
+            return dataSource.getPoolName();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package tn.pi.clientservice.datasource;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard selection on the current thread. A call names the shard its statements go to; a
+ * transaction is bound to the shard of its first connection, since all its statements share it,
+ * and asking it for another shard fails rather than reading or writing the wrong database.
+ * Statements with no shard named (imports, directory, migrations) go to the home shard.
+ */
+public final class ShardRouting {
+
+    /**
+     * Shard 0: the spring.datasource database, which also holds everything that is not a client row
+     */
+    public static final int HOME = 0;
+
+    /**
+     * Shard named by the current call, or null
+     */
+    private static final ThreadLocal<Integer> CALL = new ThreadLocal<>();
+
+    /**
+     * Shard the current transaction is bound to, or null
+     */
+    private static final ThreadLocal<Integer> TRANSACTION = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    /**
+     * Run work whose statements go to the given shard, unless the surrounding transaction is bound elsewhere
+     */
+    public static <T> T on(int shard, Supplier<T> work) {
+        Integer previous = CALL.get();
+        CALL.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CALL.remove();
+            } else {
+                CALL.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Bind the current transaction, if any, to a shard before it takes a connection there
+     */
+    public static void joinTransaction(int shard) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Integer bound = TRANSACTION.get();
+        if (bound == null) {
+            TRANSACTION.set(shard);
+            TransactionSynchronizationManager.registerSynchronization(new Binding(shard));
+        } else if (bound != shard) {
+            throw new IllegalStateException("Transaction is bound to shard " + bound + " and cannot use shard " + shard);
+        }
+    }
+
+    /**
+     * Shard for a new connection: the transaction's, else the call's, else the home shard
+     */
+    static int resolve() {
+        Integer bound = TRANSACTION.get();
+        if (bound != null) {
+            return bound;
+        }
+        Integer named = CALL.get();
+        int shard = named != null ? named : HOME;
+        joinTransaction(shard);
+        return shard;
+    }
+
+    /**
+     * Keeps the binding with its transaction: set aside while a nested transaction runs, dropped at completion
+     */
+    private static final class Binding implements TransactionSynchronization {
+
+        private final int shard;
+
+        /**
+         * Set once the transaction is over: work done from completion callbacks may still suspend
+         * and resume it, which must not bind the thread again
+         */
+        private boolean completed;
+
+        private Binding(int shard) {
+            this.shard = shard;
+        }
+
+        @Override
+        public void suspend() {
+            TRANSACTION.remove();
+        }
+
+        @Override
+        public void resume() {
+            if (!completed) {
+                TRANSACTION.set(shard);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            completed = true;
+            TRANSACTION.remove();
+        }
+    }
+}
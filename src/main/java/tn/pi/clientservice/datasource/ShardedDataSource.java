@@ -0,0 +1,100 @@
+package tn.pi.clientservice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Connections from the shard chosen by {@link ShardRouting}. Clients are placed by a stable hash
+ * of their id, so a client's shard depends only on its id and the number of shards; changing
+ * that number moves most clients, which this class does not do.
+ */
+public class ShardedDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final List<HikariDataSource> shards;
+
+    private final List<Counter> reads;
+
+    private final List<Counter> writes;
+
+    private final List<JdbcTemplate> jdbcTemplates;
+
+    private final List<TransactionTemplate> transactionTemplates;
+
+    public ShardedDataSource(List<HikariDataSource> shards, MeterRegistry meterRegistry) {
+        this.shards = List.copyOf(shards);
+        this.jdbcTemplates = this.shards.stream().map(JdbcTemplate::new).toList();
+        this.transactionTemplates = this.shards.stream()
+                .map(shard -> new TransactionTemplate(new DataSourceTransactionManager(shard)))
+                .toList();
+        this.reads = this.shards.stream()
+                .map(shard -> ReplicaRoutingDataSource.connectionCounter(meterRegistry, shard.getPoolName(), "read"))
+                .toList();
+        this.writes = this.shards.stream()
+                .map(shard -> ReplicaRoutingDataSource.connectionCounter(meterRegistry, shard.getPoolName(), "write"))
+                .toList();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int shard = ShardRouting.resolve();
+        (TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? reads : writes).get(shard).increment();
+        return shards.get(shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Shard connections use the configured credentials");
+    }
+
+    /**
+     * Shard holding the client with the given id
+     */
+    public int shardOf(long id) {
+        // 64-bit finalizer (MurmurHash3) so that consecutive ids spread evenly
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) shards.size());
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * A shard's own pool, bypassing routing (and any transaction bound to this data source)
+     */
+    public DataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    /**
+     * Run JDBC work on a shard's own pool in a transaction of its own. It is independent of any
+     * transaction on this thread, so it can also run from a transaction's completion callbacks.
+     */
+    public <T> T inTransaction(int shard, Function<JdbcTemplate, T> work) {
+        return transactionTemplates.get(shard).execute(status -> work.apply(jdbcTemplates.get(shard)));
+    }
+
+    @Override
+    public void destroy() {
+        // The home pool is a bean of its own and closed with the context
+        shards.subList(1, shards.size()).forEach(HikariDataSource::close);
+    }
+}
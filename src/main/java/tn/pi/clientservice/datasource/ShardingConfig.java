@@ -0,0 +1,143 @@
+package tn.pi.clientservice.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayProperties;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import tn.pi.clientservice.repository.ClientDirectory;
+import tn.pi.clientservice.repository.ClientDirectoryUpdateListener;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.repository.ShardedClientRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads client rows across several databases when sharding is enabled. The spring.datasource
+ * database is the home shard: it keeps everything else (imports, shard directory, outbox ids) and
+ * its share of the clients; outbox rows go with their client. The application's DataSource defers
+ * taking a physical connection until the first statement, by which time the repository has named
+ * the shard (see {@link ShardRouting}); the services' ClientStore is
+ * {@link ShardedClientRepository}, over the ClientRepository.
+ * <p>
+ * Meant for a fresh deployment: existing clients are not moved or entered in the directory.
+ */
+@Configuration
+@ConditionalOnProperty(name = "client.datasource.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * The home shard's pool, configured from spring.datasource.* as the auto-configured one would be
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeShardDataSource(DataSourceProperties dataSourceProperties,
+                                                ReadRoutingProperties readRoutingProperties) {
+        if (readRoutingProperties.isEnabled()) {
+            throw new IllegalStateException("client.datasource.sharding and client.datasource.read-routing cannot both be enabled");
+        }
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ShardedDataSource shardedDataSource(@Qualifier("homeShardDataSource") HikariDataSource home,
+                                               DataSourceProperties dataSourceProperties, ShardingProperties properties,
+                                               ObjectProvider<FlywayProperties> flywayProperties,
+                                               ObjectProvider<JavaMigration> javaMigrations,
+                                               MeterRegistry meterRegistry) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        pools.add(home);
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard shard = properties.getShards().get(i);
+            // Same pool settings as the home shard, pointed at this one
+            HikariConfig config = new HikariConfig();
+            home.copyStateTo(config);
+            config.setPoolName(home.getPoolName() + "-shard-" + (i + 1));
+            config.setJdbcUrl(shard.getUrl());
+            config.setUsername(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.determineUsername());
+            config.setPassword(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.determinePassword());
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            HikariDataSource pool = new HikariDataSource(config);
+            pools.add(pool);
+            FlywayProperties flyway = flywayProperties.getIfAvailable();
+            if (flyway != null && flyway.isEnabled()) {
+                migrate(pool, shard.getUrl(), flyway, javaMigrations.orderedStream().toArray(JavaMigration[]::new));
+            }
+        }
+        return new ShardedDataSource(pools, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("homeShardDataSource") HikariDataSource home,
+                                 ShardedDataSource shardedDataSource) throws SQLException {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(shardedDataSource);
+        // Known up front, so that the proxy never opens a connection (and picks a shard) just to ask
+        try (Connection connection = home.getConnection()) {
+            dataSource.setDefaultAutoCommit(connection.getAutoCommit());
+            dataSource.setDefaultTransactionIsolation(connection.getTransactionIsolation());
+        }
+        return dataSource;
+    }
+
+    @Bean
+    public ClientDirectory clientDirectory(ShardedDataSource shardedDataSource) {
+        return new ClientDirectory(shardedDataSource);
+    }
+
+    @Bean
+    @Primary
+    public ShardedClientRepository shardedClientRepository(@Qualifier("clientRepository") ClientRepository clientRepository,
+                                                           ShardedDataSource shardedDataSource,
+                                                           ClientDirectory clientDirectory,
+                                                           PlatformTransactionManager transactionManager,
+                                                           EntityManagerFactory entityManagerFactory,
+                                                           ShardingProperties properties) {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.PRE_UPDATE, new ClientDirectoryUpdateListener(clientDirectory));
+        return new ShardedClientRepository(clientRepository, shardedDataSource, clientDirectory, transactionManager,
+                entityManagerFactory, properties.getScatterThreads());
+    }
+
+    /**
+     * Apply the application's migrations to a shard, as Flyway's auto-configuration does for the home shard
+     */
+    private static void migrate(DataSource shard, String url, FlywayProperties flyway, JavaMigration[] javaMigrations) {
+        String vendor = DatabaseDriver.fromJdbcUrl(url).getId();
+        Flyway.configure()
+                .dataSource(shard)
+                .locations(flyway.getLocations().stream().map(location -> location.replace("{vendor}", vendor))
+                        .toArray(String[]::new))
+                .javaMigrations(javaMigrations)
+                .baselineOnMigrate(flyway.isBaselineOnMigrate())
+                .baselineVersion(flyway.getBaselineVersion())
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,40 @@
+package tn.pi.clientservice.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client shards, bound from client.datasource.sharding.*. The spring.datasource database is
+ * shard 0 (the home shard); the shards listed here follow it in order.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "client.datasource.sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Threads running the per-shard parts of listings and counts
+     */
+    private int scatterThreads = 16;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+
+        private String url;
+
+        /**
+         * Credentials, defaulting to the home shard's (spring.datasource.*)
+         */
+        private String username;
+
+        private String password;
+    }
+}
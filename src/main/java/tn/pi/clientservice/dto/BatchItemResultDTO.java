@@ -0,0 +1,28 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one client in a batch registration
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchItemResultDTO {
+
+    private int index;
+
+    private boolean success;
+
+    private Long id;
+
+    private String email;
+
+    private String username;
+
+    private String message;
+}
@@ -0,0 +1,40 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Per-item results and throughput of a batch registration
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchRegistrationResultDTO {
+
+    private int total;
+
+    private int registered;
+
+    private int failed;
+
+    private long elapsedMillis;
+
+    private double rowsPerSecond;
+
+    /**
+     * Throughput of POST /register so far, null until it has been used
+     */
+    private Double singleRowRowsPerSecond;
+
+    /**
+     * rowsPerSecond divided by singleRowRowsPerSecond
+     */
+    private Double speedup;
+
+    private List<BatchItemResultDTO> items;
+}
@@ -0,0 +1,34 @@
+package tn.pi.clientservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.pi.clientservice.enums.ClientChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One client change read back from the outbox; id is the offset to resume after
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientChangeDTO {
+
+    private Long id;
+
+    private Long clientId;
+
+    private ClientChangeType type;
+
+    private LocalDateTime occurredAt;
+
+    /**
+     * Client state as stored in the outbox (after the change, or before a deletion), already JSON
+     */
+    @JsonRawValue
+    private String client;
+}
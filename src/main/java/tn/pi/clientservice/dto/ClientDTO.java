@@ -29,8 +29,10 @@ public class ClientDTO {
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email must be valid")
+    @Size(max = 100, message = "Email must be at most 100 characters")
     private String email;
 
+    @Size(max = 20, message = "Phone must be at most 20 characters")
     private String phone;
 
     @NotBlank(message = "Username is required")
@@ -41,6 +43,7 @@ public class ClientDTO {
     @Size(min = 6, message = "Password must be at least 6 characters")
     private String password;
 
+    @Size(max = 255, message = "Address must be at most 255 characters")
     private String address;
 
     private UserRole role;
@@ -51,6 +54,11 @@ public class ClientDTO {
 
     private LocalDateTime updatedAt;
 
+    /**
+     * Entity version, bumped by every update; read-only for callers
+     */
+    private Long version;
+
     // Constructors
     public ClientDTO() {
     }
@@ -160,6 +168,14 @@ public class ClientDTO {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "ClientDTO{" +
@@ -0,0 +1,55 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.pi.clientservice.enums.ImportStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk CSV import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientImportDTO {
+
+    private Long id;
+
+    private String filename;
+
+    private ImportStatus status;
+
+    private long fileSize;
+
+    /**
+     * Bytes of the file committed so far; the job resumes from here
+     */
+    private long bytesRead;
+
+    private double percentComplete;
+
+    private long rowsRead;
+
+    private long imported;
+
+    private long failed;
+
+    /**
+     * Processing time across all runs of the job
+     */
+    private long elapsedMillis;
+
+    private double rowsPerSecond;
+
+    private String message;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+}
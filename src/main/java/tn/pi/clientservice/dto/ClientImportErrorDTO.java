@@ -0,0 +1,29 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row rejected by a bulk import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientImportErrorDTO {
+
+    private Long id;
+
+    /**
+     * 1-based data row in the file, not counting the header
+     */
+    private long recordNumber;
+
+    private String email;
+
+    private String username;
+
+    private String message;
+}
@@ -0,0 +1,24 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keys of a multi-get; any of the lists may be left out
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientLookupDTO {
+
+    private List<Long> ids;
+
+    private List<String> emails;
+
+    private List<String> usernames;
+}
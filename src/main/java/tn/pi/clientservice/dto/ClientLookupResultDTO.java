@@ -0,0 +1,26 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Clients matching a multi-get, each listed once whichever keys matched it, and the keys that matched none
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientLookupResultDTO {
+
+    private List<ClientDTO> clients;
+
+    private List<Long> missingIds;
+
+    private List<String> missingEmails;
+
+    private List<String> missingUsernames;
+}
@@ -0,0 +1,26 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of clients fetched with an id cursor
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientPageDTO<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    private Long nextCursor;
+
+    private boolean hasNext;
+}
@@ -0,0 +1,43 @@
+package tn.pi.clientservice.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+
+/**
+ * Partial update of a client: only the fields present (non-null) are applied
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientPatchDTO {
+
+    @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
+    private String firstName;
+
+    @Size(min = 2, max = 50, message = "Last name must be between 2 and 50 characters")
+    private String lastName;
+
+    @Email(message = "Email must be valid")
+    @Size(min = 3, max = 100, message = "Email must be between 3 and 100 characters")
+    private String email;
+
+    @Size(max = 20, message = "Phone must be at most 20 characters")
+    private String phone;
+
+    @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
+    private String username;
+
+    @Size(max = 255, message = "Address must be at most 255 characters")
+    private String address;
+
+    private UserRole role;
+
+    private UserStatus status;
+}
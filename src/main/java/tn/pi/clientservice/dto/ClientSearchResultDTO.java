@@ -0,0 +1,30 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of ranked client search results
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientSearchResultDTO {
+
+    private String query;
+
+    private List<ClientSummaryDTO> content;
+
+    private int page;
+
+    private int size;
+
+    private long total;
+
+    private boolean hasNext;
+}
@@ -0,0 +1,38 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Client counts by role, status and registration day
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientStatsDTO {
+
+    private boolean ready;
+
+    private long total;
+
+    private Map<UserRole, Long> byRole;
+
+    private Map<UserStatus, Long> byStatus;
+
+    private Map<LocalDate, Long> registrationsByDay;
+
+    private LocalDateTime lastReconciledAt;
+
+    private long lastReconcileMillis;
+
+    private long lastReconcileDrift;
+}
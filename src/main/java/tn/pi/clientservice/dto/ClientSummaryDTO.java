@@ -0,0 +1,44 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a client's exposed columns, selected directly by JPQL constructor
+ * projection so listings never load managed entities or the password hash.
+ * The constructor argument order is used by ClientRepository's projection queries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClientSummaryDTO {
+
+    private Long id;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private String phone;
+
+    private String username;
+
+    private String address;
+
+    private UserRole role;
+
+    private UserStatus status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,42 @@
+package tn.pi.clientservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Body of every error response: {"success": false, "message": ...}, plus per-field messages
+ * for validation failures. Instances are immutable, so fixed messages are shared constants.
+ */
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"success", "message", "errors"})
+public final class ErrorResponse {
+
+    public static final ErrorResponse TOO_MANY_REQUESTS = new ErrorResponse("Too many requests, please retry later", null);
+
+    public static final ErrorResponse DATABASE_BUSY = new ErrorResponse("Database busy, please retry", null);
+
+    public static final ErrorResponse UNEXPECTED_ERROR = new ErrorResponse("An unexpected error occurred", null);
+
+    private final boolean success = false;
+
+    private final String message;
+
+    private final Map<String, String> errors;
+
+    private ErrorResponse(String message, Map<String, String> errors) {
+        this.message = message;
+        this.errors = errors;
+    }
+
+    public static ErrorResponse of(String message) {
+        return new ErrorResponse(message, null);
+    }
+
+    public static ErrorResponse of(String message, Map<String, String> errors) {
+        return new ErrorResponse(message, Map.copyOf(errors));
+    }
+}
@@ -0,0 +1,32 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.pi.clientservice.enums.ExportFormat;
+
+/**
+ * Outcome of a client export
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportResultDTO {
+
+    private ExportFormat format;
+
+    private boolean gzip;
+
+    private long rows;
+
+    /**
+     * Bytes written to the target, after compression
+     */
+    private long bytes;
+
+    private long elapsedMillis;
+
+    private double rowsPerSecond;
+}
@@ -0,0 +1,38 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Snapshot of the password hashing pool
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PasswordHashingStatsDTO {
+
+    private int bcryptStrength;
+
+    private int poolSize;
+
+    private int activeCount;
+
+    private int queueDepth;
+
+    private int queueCapacity;
+
+    private long completedCount;
+
+    private long rejectedCount;
+
+    private long timedOutCount;
+
+    private double averageHashMillis;
+
+    private double maxHashMillis;
+
+    private double averageQueueWaitMillis;
+}
@@ -0,0 +1,34 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the client search index
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchIndexStatsDTO {
+
+    private boolean ready;
+
+    private long documentCount;
+
+    private long gramCount;
+
+    private long tokenCount;
+
+    private long postingCount;
+
+    private long stalePostingCount;
+
+    private LocalDateTime lastRebuildAt;
+
+    private long lastRebuildMillis;
+}
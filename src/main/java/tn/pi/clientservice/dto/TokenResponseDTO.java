@@ -0,0 +1,26 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bearer token pair issued at login and on refresh; lifetimes are in seconds
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenResponseDTO {
+
+    private String tokenType;
+
+    private String accessToken;
+
+    private long expiresIn;
+
+    private String refreshToken;
+
+    private long refreshExpiresIn;
+}
@@ -0,0 +1,46 @@
+package tn.pi.clientservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the email/username uniqueness filter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UniquenessIndexStatsDTO {
+
+    private boolean ready;
+
+    private long emailCount;
+
+    private long usernameCount;
+
+    private long bitCount;
+
+    private int hashCount;
+
+    private long checkCount;
+
+    private long definiteNegativeCount;
+
+    private long falsePositiveCount;
+
+    private double observedFalsePositiveRate;
+
+    private double expectedEmailFalsePositiveRate;
+
+    private double expectedUsernameFalsePositiveRate;
+
+    private long staleEntryCount;
+
+    private LocalDateTime lastRebuildAt;
+
+    private long lastRebuildMillis;
+}
@@ -8,20 +8,51 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.IdGeneratorType;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 import tn.pi.clientservice.enums.UserRole;
 import tn.pi.clientservice.enums.UserStatus;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "CLIENT")
+// Updates write only the changed columns, so a one-field change is a one-column UPDATE
+@DynamicUpdate
+// Second-level cache: by id, and username -> id through the natural-id region
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Client.CACHE_REGION)
+@NaturalIdCache(region = Client.NATURAL_ID_CACHE_REGION)
+// Soft delete: removing a client is one UPDATE guarded by its version (no matching row fails as a
+// concurrent change), and deleted rows are invisible to every query until the purge job drops them
+@SQLDelete(sql = "update CLIENT set deleted_at = current_timestamp(6) where id = ? and version = ?")
+@SQLRestriction("deleted_at is null")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Client {
+    /**
+     * Second-level cache regions: entities by id, username resolutions, and email lookup results
+     */
+    public static final String CACHE_REGION = "client";
+
+    public static final String NATURAL_ID_CACHE_REGION = "client-natural-id";
+
+    public static final String EMAIL_QUERY_CACHE_REGION = "client-by-email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Sequence
     private Long id;
 
     @NotBlank(message = "First name is required")
@@ -42,6 +73,11 @@ public class Client {
     @Column(name = "phone", length = 20)
     private String phone;
 
+    /**
+     * Natural id (Hibernate allows one per entity), so username lookups resolve through the cache;
+     * mutable because an update may rename the client
+     */
+    @NaturalId(mutable = true)
     @NotBlank(message = "Username is required")
     @Size(min = 3, max = 50, message = "Username must be between 3 and 50 characters")
     @Column(name = "username", nullable = false, unique = true, length = 50)
@@ -69,6 +105,13 @@ public class Client {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Optimistic lock: incremented by each update, which fails if another one got in first
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -80,6 +123,15 @@ public class Client {
         updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * Id from client_seq, or the one the shard directory assigned (see {@link ClientIdGenerator})
+     */
+    @IdGeneratorType(ClientIdGenerator.class)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    @interface Sequence {
+    }
+
     @Override
     public String toString() {
         return "Client{" +
@@ -0,0 +1,34 @@
+package tn.pi.clientservice.entities;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Client ids from the client_seq sequence (pooled, 50 at a time), unless the client already has
+ * one: with sharding, ids are allocated by the shard directory before the row is written, since
+ * the id decides which shard the row goes to.
+ */
+public class ClientIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.putIfAbsent(SEQUENCE_PARAM, "client_seq");
+        parameters.putIfAbsent(INCREMENT_PARAM, "50");
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : generate(session, owner);
+    }
+}
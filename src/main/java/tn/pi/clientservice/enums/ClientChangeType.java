@@ -0,0 +1,8 @@
+package tn.pi.clientservice.enums;
+
+public enum ClientChangeType {
+    REGISTERED,
+    UPDATED,
+    PASSWORD_CHANGED,
+    DELETED
+}
@@ -0,0 +1,8 @@
+package tn.pi.clientservice.enums;
+
+public enum ImportStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,57 @@
+package tn.pi.clientservice.event;
+
+import lombok.Getter;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.enums.ClientChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the write paths of the client services once a change is saved.
+ * Listeners that maintain in-memory views should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)} so they only
+ * see committed changes. The DTOs are shared and must not be modified.
+ */
+@Getter
+public class ClientChangedEvent {
+
+    private final ClientChangeType type;
+
+    private final Long clientId;
+
+    /**
+     * State before the change; null for a registration
+     */
+    private final ClientDTO before;
+
+    /**
+     * State after the change; null for a deletion
+     */
+    private final ClientDTO after;
+
+    private final LocalDateTime occurredAt;
+
+    private ClientChangedEvent(ClientChangeType type, Long clientId, ClientDTO before, ClientDTO after) {
+        this.type = type;
+        this.clientId = clientId;
+        this.before = before;
+        this.after = after;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public static ClientChangedEvent registered(ClientDTO after) {
+        return new ClientChangedEvent(ClientChangeType.REGISTERED, after.getId(), null, after);
+    }
+
+    public static ClientChangedEvent updated(ClientDTO before, ClientDTO after) {
+        return new ClientChangedEvent(ClientChangeType.UPDATED, after.getId(), before, after);
+    }
+
+    public static ClientChangedEvent passwordChanged(ClientDTO client) {
+        return new ClientChangedEvent(ClientChangeType.PASSWORD_CHANGED, client.getId(), client, client);
+    }
+
+    public static ClientChangedEvent deleted(ClientDTO before) {
+        return new ClientChangedEvent(ClientChangeType.DELETED, before.getId(), before, null);
+    }
+}
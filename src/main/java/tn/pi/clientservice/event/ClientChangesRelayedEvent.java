@@ -0,0 +1,23 @@
+package tn.pi.clientservice.event;
+
+import lombok.Getter;
+import tn.pi.clientservice.dto.ClientChangeDTO;
+
+import java.util.List;
+
+/**
+ * Published by the outbox relay for each batch of committed changes it reads, whichever
+ * instance made them, so listeners can drop state that other instances have changed.
+ */
+@Getter
+public class ClientChangesRelayedEvent {
+
+    /**
+     * Changes in outbox id order; shared and must not be modified
+     */
+    private final List<ClientChangeDTO> changes;
+
+    public ClientChangesRelayedEvent(List<ClientChangeDTO> changes) {
+        this.changes = changes;
+    }
+}
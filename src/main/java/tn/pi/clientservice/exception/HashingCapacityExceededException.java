@@ -0,0 +1,11 @@
+package tn.pi.clientservice.exception;
+
+public class HashingCapacityExceededException extends StacklessException {
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+
+    public HashingCapacityExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package tn.pi.clientservice.exception;
+
+/**
+ * A conditional write found the client in a different state than the caller expected
+ */
+public class PreconditionFailedException extends StacklessException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,6 @@
 package tn.pi.clientservice.exception;
 
-public class ResourceAlreadyExistsException extends RuntimeException {
+public class ResourceAlreadyExistsException extends StacklessException {
     public ResourceAlreadyExistsException(String message) {
         super(message);
     }
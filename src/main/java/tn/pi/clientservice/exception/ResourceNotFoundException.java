@@ -1,6 +1,6 @@
 package tn.pi.clientservice.exception;
 
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends StacklessException {
     public ResourceNotFoundException(String message) {
         super(message);
     }
@@ -0,0 +1,10 @@
+package tn.pi.clientservice.exception;
+
+/**
+ * A component the request needs is still starting up or too busy; the caller should retry shortly
+ */
+public class ServiceUnavailableException extends StacklessException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
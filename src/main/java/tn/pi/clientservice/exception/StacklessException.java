@@ -0,0 +1,17 @@
+package tn.pi.clientservice.exception;
+
+/**
+ * Base of the exceptions that report an expected outcome to the caller (a missing or taken
+ * resource, a failed precondition, an overloaded dependency). They are mapped to a status by
+ * {@link GlobalExceptionHandler} and never logged, so they skip capturing a stack trace.
+ */
+public abstract class StacklessException extends RuntimeException {
+
+    protected StacklessException(String message) {
+        super(message, null, false, false);
+    }
+
+    protected StacklessException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
@@ -0,0 +1,58 @@
+package tn.pi.clientservice.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tn.pi.clientservice.dto.ExportResultDTO;
+import tn.pi.clientservice.enums.ExportFormat;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line export: started with --client.export.output=&lt;file&gt;, the application writes
+ * every client to that file and exits instead of serving requests. A .gz suffix compresses
+ * the output; --client.export.format picks csv (default) or ndjson. The exit itself is left
+ * to main, which closes the context with this runner's exit code.
+ */
+@Component
+@ConditionalOnProperty("client.export.output")
+public class ClientExportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientExportRunner.class);
+
+    @Autowired
+    private ClientExporter clientExporter;
+
+    @Value("${client.export.output}")
+    private String output;
+
+    @Value("${client.export.format:csv}")
+    private String format;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Path path = Path.of(output);
+        ExportResultDTO result;
+        try (OutputStream out = Files.newOutputStream(path)) {
+            result = clientExporter.export(ExportFormat.of(format), output.endsWith(".gz"), out);
+        }
+        log.info("Export written to {}: {} rows in {} ms ({} rows/s)", path.toAbsolutePath(),
+                result.getRows(), result.getElapsedMillis(), Math.round(result.getRowsPerSecond()));
+    }
+
+    /**
+     * Only reached once the export has succeeded: a failed one fails the application start
+     */
+    @Override
+    public int getExitCode() {
+        return 0;
+    }
+}
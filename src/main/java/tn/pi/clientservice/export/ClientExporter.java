@@ -0,0 +1,309 @@
+package tn.pi.clientservice.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import tn.pi.clientservice.datasource.ShardedDataSource;
+import tn.pi.clientservice.dto.ExportResultDTO;
+import tn.pi.clientservice.enums.ExportFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes every client to CSV or NDJSON straight from a forward-only JDBC cursor: each row
+ * is copied column by column from the ResultSet into the output, with no entity or DTO in
+ * between, so heap use does not depend on the number of clients. Passwords are never exported.
+ */
+@Component
+public class ClientExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientExporter.class);
+
+    private static final String SELECT = "select id, first_name, last_name, email, phone, username, address, "
+            + "role, status, created_at, updated_at from CLIENT where deleted_at is null order by id";
+
+    /**
+     * Output column names, in SELECT order; NDJSON uses the same field names as the JSON API
+     */
+    private static final String[] CSV_COLUMNS = {"id", "first_name", "last_name", "email", "phone", "username",
+            "address", "role", "status", "created_at", "updated_at"};
+
+    private static final String[] JSON_FIELDS = {"id", "firstName", "lastName", "email", "phone", "username",
+            "address", "role", "status", "createdAt", "updatedAt"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<ShardedDataSource> shardedDataSource;
+
+    /**
+     * Rows pulled per round trip (MySQL needs useCursorFetch=true for this to stream)
+     */
+    @Value("${client.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Export all clients ordered by id. The read-only transaction gives the whole export one
+     * consistent snapshot. The target is flushed but left open.
+     */
+    @Transactional(readOnly = true)
+    public ExportResultDTO export(ExportFormat format, boolean gzip, OutputStream target) throws IOException {
+        long start = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(target);
+        OutputStream out = gzip ? new GZIPOutputStream(counted, BUFFER_SIZE) : new BufferedOutputStream(counted, BUFFER_SIZE);
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+
+        long[] rows = {0};
+        ShardedDataSource shards = shardedDataSource.getIfAvailable();
+        if (shards != null) {
+            rows[0] = exportShards(shards, writer);
+        } else {
+            try {
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(SELECT,
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                }, (RowCallbackHandler) rs -> {
+                    try {
+                        writer.write(rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        writer.finish();
+        if (out instanceof GZIPOutputStream compressed) {
+            compressed.finish();
+        }
+        out.flush();
+
+        long elapsedNanos = System.nanoTime() - start;
+        ExportResultDTO result = ExportResultDTO.builder()
+                .format(format)
+                .gzip(gzip)
+                .rows(rows[0])
+                .bytes(counted.count)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(elapsedNanos == 0 ? 0 : rows[0] * 1e9 / elapsedNanos)
+                .build();
+        meterRegistry.counter("client.export.rows", "format", format.getExtension()).increment(rows[0]);
+        meterRegistry.timer("client.export", "format", format.getExtension()).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Exported {} clients as {}{} in {} ms ({} rows/s, {} bytes)", result.getRows(),
+                format.getExtension(), gzip ? ".gz" : "", result.getElapsedMillis(),
+                Math.round(result.getRowsPerSecond()), result.getBytes());
+        return result;
+    }
+
+    /**
+     * With sharding: one cursor per shard, each in a read-only transaction of its own, merged by
+     * id. Each shard's rows are a consistent snapshot, the shards are not one between them.
+     */
+    private long exportShards(ShardedDataSource shards, RowWriter writer) throws IOException {
+        List<Connection> connections = new ArrayList<>();
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparingLong(Cursor::id));
+        long rows = 0;
+        try {
+            for (int shard = 0; shard < shards.getShardCount(); shard++) {
+                Connection connection = shards.getShard(shard).getConnection();
+                connections.add(connection);
+                connection.setReadOnly(true);
+                connection.setAutoCommit(false);
+                PreparedStatement statement = connection.prepareStatement(SELECT,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                Cursor.advance(statement.executeQuery(), cursors);
+            }
+            while (!cursors.isEmpty()) {
+                ResultSet rs = cursors.poll().rs();
+                writer.write(rs);
+                rows++;
+                Cursor.advance(rs, cursors);
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("Export", SELECT, e);
+        } finally {
+            // The pool rolls back the read-only transactions and restores the connections' settings
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("Could not close a shard connection after the export", e);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * A shard's result set positioned on a row, and that row's id
+     */
+    private record Cursor(ResultSet rs, long id) {
+
+        /**
+         * Move to the next row, queueing the result set again unless it is exhausted
+         */
+        static void advance(ResultSet rs, PriorityQueue<Cursor> cursors) throws SQLException {
+            if (rs.next()) {
+                cursors.add(new Cursor(rs, rs.getLong(1)));
+            }
+        }
+    }
+
+    private static String timestamp(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value.toLocalDateTime());
+    }
+
+    private interface RowWriter {
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * RFC 4180 CSV with a header line; fields are quoted only when they need it
+     */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(String.join(",", CSV_COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            for (int column = 2; column <= 9; column++) {
+                writer.write(',');
+                field(rs.getString(column));
+            }
+            writer.write(',');
+            field(timestamp(rs, 10));
+            writer.write(',');
+            field(timestamp(rs, 11));
+            writer.write("\r\n");
+        }
+
+        private void field(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * One JSON object per line, written through a streaming generator
+     */
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(JSON_FIELDS[0], rs.getLong(1));
+            for (int column = 2; column <= 9; column++) {
+                generator.writeStringField(JSON_FIELDS[column - 1], rs.getString(column));
+            }
+            generator.writeStringField(JSON_FIELDS[9], timestamp(rs, 10));
+            generator.writeStringField(JSON_FIELDS[10], timestamp(rs, 11));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package tn.pi.clientservice.imports;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import tn.pi.clientservice.dto.ClientImportDTO;
+import tn.pi.clientservice.dto.ClientImportErrorDTO;
+import tn.pi.clientservice.enums.ImportStatus;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Data access for the client_import and client_import_error tables. Checkpoints and
+ * errors join the caller's transaction, so they commit together with the chunk they describe.
+ */
+@Component
+public class ClientImportJobs {
+
+    private static final String SELECT = "select id, filename, status, file_size, next_offset, rows_read, imported, "
+            + "failed, elapsed_ms, message, created_at, updated_at, finished_at from client_import ";
+
+    private static final RowMapper<ClientImportDTO> ROW_MAPPER = (rs, rowNum) -> {
+        long fileSize = rs.getLong("file_size");
+        long bytesRead = rs.getLong("next_offset");
+        long rowsRead = rs.getLong("rows_read");
+        long elapsedMillis = rs.getLong("elapsed_ms");
+        Timestamp finishedAt = rs.getTimestamp("finished_at");
+        return ClientImportDTO.builder()
+                .id(rs.getLong("id"))
+                .filename(rs.getString("filename"))
+                .status(ImportStatus.valueOf(rs.getString("status")))
+                .fileSize(fileSize)
+                .bytesRead(bytesRead)
+                .percentComplete(fileSize == 0 ? 100.0 : Math.min(100.0, bytesRead * 100.0 / fileSize))
+                .rowsRead(rowsRead)
+                .imported(rs.getLong("imported"))
+                .failed(rs.getLong("failed"))
+                .elapsedMillis(elapsedMillis)
+                .rowsPerSecond(elapsedMillis == 0 ? 0.0 : rowsRead * 1000.0 / elapsedMillis)
+                .message(rs.getString("message"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                .finishedAt(finishedAt != null ? finishedAt.toLocalDateTime() : null)
+                .build();
+    };
+
+    private static final RowMapper<ClientImportErrorDTO> ERROR_ROW_MAPPER = (rs, rowNum) -> ClientImportErrorDTO.builder()
+            .id(rs.getLong("id"))
+            .recordNumber(rs.getLong("record_no"))
+            .email(rs.getString("email"))
+            .username(rs.getString("username"))
+            .message(rs.getString("message"))
+            .build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Register a new pending import of the stored file
+     */
+    public long create(String filename, String path, long fileSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("insert into client_import "
+                    + "(filename, path, file_size, status, created_at, updated_at) values (?, ?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, truncate(filename, 255));
+            ps.setString(2, path);
+            ps.setLong(3, fileSize);
+            ps.setString(4, ImportStatus.PENDING.name());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKeyAs(Number.class).longValue();
+    }
+
+    public Optional<ClientImportDTO> find(long id) {
+        return jdbcTemplate.query(SELECT + "where id = ?", ROW_MAPPER, id).stream().findFirst();
+    }
+
+    public List<ClientImportDTO> findAll() {
+        return jdbcTemplate.query(SELECT + "order by id desc", ROW_MAPPER);
+    }
+
+    /**
+     * Stored file of an import
+     */
+    public String findPath(long id) {
+        return jdbcTemplate.queryForObject("select path from client_import where id = ?", String.class, id);
+    }
+
+    /**
+     * Imports left pending or running, e.g. by a crash or a shutdown
+     */
+    public List<Long> findUnfinished() {
+        return jdbcTemplate.queryForList("select id from client_import where status in (?, ?) order by id",
+                Long.class, ImportStatus.PENDING.name(), ImportStatus.RUNNING.name());
+    }
+
+    /**
+     * Mark an import running unless it has completed
+     *
+     * @return false when there is nothing left to run
+     */
+    public boolean start(long id) {
+        return jdbcTemplate.update("update client_import set status = ?, message = null, updated_at = ? "
+                        + "where id = ? and status <> ?",
+                ImportStatus.RUNNING.name(), Timestamp.valueOf(LocalDateTime.now()), id, ImportStatus.COMPLETED.name()) == 1;
+    }
+
+    /**
+     * Move the resume point past a chunk and add its counts, in the current transaction
+     */
+    public void checkpoint(long id, long nextOffset, long rowsRead, int imported, int failed, long elapsedMillis) {
+        jdbcTemplate.update("update client_import set next_offset = ?, rows_read = ?, imported = imported + ?, "
+                        + "failed = failed + ?, elapsed_ms = elapsed_ms + ?, updated_at = ? where id = ?",
+                nextOffset, rowsRead, imported, failed, elapsedMillis, Timestamp.valueOf(LocalDateTime.now()), id);
+    }
+
+    /**
+     * Record rejected rows with one JDBC batch, in the current transaction
+     */
+    public void appendErrors(long id, List<ClientImportErrorDTO> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into client_import_error (import_id, record_no, email, username, message) "
+                + "values (?, ?, ?, ?, ?)", errors, errors.size(), (ps, error) -> {
+            ps.setLong(1, id);
+            ps.setLong(2, error.getRecordNumber());
+            ps.setString(3, truncate(error.getEmail(), 100));
+            ps.setString(4, truncate(error.getUsername(), 50));
+            ps.setString(5, truncate(error.getMessage(), 1000));
+        });
+    }
+
+    public void finish(long id, ImportStatus status, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("update client_import set status = ?, message = ?, updated_at = ?, finished_at = ? where id = ?",
+                status.name(), truncate(message, 1000), Timestamp.valueOf(now),
+                status == ImportStatus.COMPLETED ? Timestamp.valueOf(now) : null, id);
+    }
+
+    /**
+     * Rejected rows of an import following the given error id (keyset pagination)
+     */
+    public List<ClientImportErrorDTO> findErrors(long id, long after, int limit) {
+        return jdbcTemplate.query("select id, record_no, email, username, message from client_import_error "
+                + "where import_id = ? and id > ? order by id limit ?", ERROR_ROW_MAPPER, id, after, limit);
+    }
+
+    private static String truncate(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+}
@@ -0,0 +1,155 @@
+package tn.pi.clientservice.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV records from a UTF-8 file while tracking the byte offset of the next
+ * record, so a reader can be reopened exactly where a previous one stopped. Quoted fields
+ * may contain separators, doubled quotes and line breaks; blank lines are skipped.
+ */
+public class CsvRecordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private byte[] field = new byte[256];
+
+    private int fieldLength;
+
+    private long offset;
+
+    public CsvRecordReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip();
+        skipByteOrderMark();
+    }
+
+    /**
+     * Continue from a byte offset returned by {@link #offset()}
+     */
+    public void seek(long position) throws IOException {
+        channel.position(position);
+        buffer.clear().flip();
+        offset = position;
+    }
+
+    /**
+     * Byte offset of the next record
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * The next record's fields, or null at the end of the file
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        fieldLength = 0;
+        boolean quoted = false;
+        boolean empty = true;
+        int b;
+        while ((b = read()) >= 0) {
+            if (quoted) {
+                if (b == '"') {
+                    int following = peek();
+                    if (following == '"') {
+                        read();
+                        append(b);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append(b);
+                }
+                continue;
+            }
+            if (b == '\n') {
+                if (empty) {
+                    continue;
+                }
+                break;
+            }
+            if (b == '\r') {
+                continue;
+            }
+            empty = false;
+            if (b == ',') {
+                fields.add(takeField());
+            } else if (b == '"' && fieldLength == 0) {
+                quoted = true;
+            } else {
+                append(b);
+            }
+        }
+        if (empty && b < 0) {
+            return null;
+        }
+        fields.add(takeField());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (peek() == 0xEF) {
+            byte[] head = new byte[3];
+            for (int i = 0; i < 3 && peek() >= 0; i++) {
+                head[i] = (byte) read();
+            }
+            if (!Arrays.equals(head, new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF})) {
+                seek(0);
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        offset++;
+        return buffer.get() & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer.get(buffer.position()) & 0xFF : -1;
+    }
+
+    private boolean fill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        buffer.clear();
+        int n = channel.read(buffer);
+        buffer.flip();
+        return n > 0;
+    }
+
+    private void append(int b) {
+        if (fieldLength == field.length) {
+            field = Arrays.copyOf(field, field.length * 2);
+        }
+        field[fieldLength++] = (byte) b;
+    }
+
+    private String takeField() {
+        String value = new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+        fieldLength = 0;
+        return value;
+    }
+}
@@ -0,0 +1,524 @@
+package tn.pi.clientservice.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.dto.ClientSearchResultDTO;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
+import tn.pi.clientservice.dto.SearchIndexStatsDTO;
+import tn.pi.clientservice.enums.ClientChangeType;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.exception.ServiceUnavailableException;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+import tn.pi.clientservice.repository.ClientStore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory search over client names, emails and usernames.
+ * Queries of three characters or more match substrings through a trigram index;
+ * shorter ones match word prefixes through a sorted token map. Every candidate is
+ * checked against its stored text, so postings left behind by updates and
+ * deletions never surface as results; they are compacted away once they pile up.
+ */
+@Component
+public class ClientSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientSearchIndex.class);
+
+    /**
+     * Shortest query answered from the trigram index; shorter ones only match prefixes
+     */
+    static final int GRAM_LENGTH = 3;
+
+    /**
+     * Compact once this share of postings points at text a client no longer has
+     */
+    private static final double COMPACTION_RATIO = 0.25;
+
+    private static final long COMPACTION_MIN_STALE = 10_000;
+
+    private static final int SCORE_EXACT = 100;
+
+    private static final int SCORE_FIELD_PREFIX = 75;
+
+    private static final int SCORE_WORD_PREFIX = 50;
+
+    private static final int SCORE_SUBSTRING = 25;
+
+    /**
+     * Best score first, then lowest id, so equal matches keep a stable order across pages
+     */
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::score).reversed()
+            .thenComparingLong(Match::id);
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private ClientDTOMapper clientDTOMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Guards the live index: searches share it, changes and compaction take it exclusively
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * Index answering searches; null until the first build completes
+     */
+    private volatile Index current;
+
+    /**
+     * Changes seen while a rebuild reads the database, replayed onto the new index; guarded by the write lock
+     */
+    private List<ClientChangedEvent> pendingDuringRebuild;
+
+    private volatile LocalDateTime lastRebuildAt;
+
+    private volatile long lastRebuildMillis;
+
+    /**
+     * Build the index once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Searches report the index as unavailable until a rebuild succeeds
+            log.error("Client search index build failed", e);
+        }
+    }
+
+    /**
+     * Rebuild the index from the database
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index next = new Index();
+            try {
+                TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+                readOnly.setReadOnly(true);
+                readOnly.executeWithoutResult(status -> {
+                    try (Stream<ClientSummaryDTO> clients = clientRepository.streamAllSummaries()) {
+                        clients.forEach(client -> next.put(new Document(client)));
+                    }
+                });
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild.forEach(event -> apply(next, event));
+                pendingDuringRebuild = null;
+                current = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastRebuildAt = LocalDateTime.now();
+            lastRebuildMillis = System.currentTimeMillis() - start;
+            log.info("Client search index rebuilt with {} clients in {} ms", next.documentCount, lastRebuildMillis);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Keep the index in step with committed client changes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientChanged(ClientChangedEvent event) {
+        if (event.getType() == ClientChangeType.PASSWORD_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Index index = current;
+            if (index != null) {
+                apply(index, event);
+                if (index.needsCompaction()) {
+                    current = index.compact();
+                }
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find clients whose name, email or username contains the query, best matches first
+     */
+    public ClientSearchResultDTO search(String query, int page, int size) {
+        String q = normalize(query);
+        Index index = current;
+        if (index == null) {
+            throw new ServiceUnavailableException("Client search index is not ready yet");
+        }
+
+        // Min-heap on rank holding the best (page + 1) * size matches
+        int keep = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(keep, 1024), RANKING.reversed());
+        long total = 0;
+        lock.readLock().lock();
+        try {
+            BitSet candidates = index.candidates(q);
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Document document = index.slots.get(slot);
+                int score = document != null ? document.score(q) : 0;
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                if (best.size() < keep) {
+                    best.add(new Match(document.id, score, document.client));
+                } else if (ranksBefore(score, document.id, best.peek())) {
+                    best.poll();
+                    best.add(new Match(document.id, score, document.client));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        int from = Math.min(page * size, ranked.size());
+        List<ClientSummaryDTO> content = ranked.subList(from, ranked.size()).stream()
+                .map(Match::client)
+                .toList();
+        return ClientSearchResultDTO.builder()
+                .query(query)
+                .content(content)
+                .page(page)
+                .size(content.size())
+                .total(total)
+                .hasNext(total > (long) (page + 1) * size)
+                .build();
+    }
+
+    /**
+     * Index size and compaction counters
+     */
+    public SearchIndexStatsDTO stats() {
+        Index index = current;
+        SearchIndexStatsDTO.SearchIndexStatsDTOBuilder stats = SearchIndexStatsDTO.builder()
+                .ready(index != null)
+                .lastRebuildAt(lastRebuildAt)
+                .lastRebuildMillis(lastRebuildMillis);
+        if (index != null) {
+            lock.readLock().lock();
+            try {
+                stats.documentCount(index.documentCount)
+                        .gramCount(index.grams.size())
+                        .tokenCount(index.tokens.size())
+                        .postingCount(index.postings)
+                        .stalePostingCount(index.stalePostings);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        return stats.build();
+    }
+
+    private static boolean ranksBefore(int score, long id, Match other) {
+        return score > other.score || (score == other.score && id < other.id);
+    }
+
+    private void apply(Index index, ClientChangedEvent event) {
+        if (event.getAfter() == null) {
+            index.remove(event.getClientId());
+        } else {
+            index.put(new Document(clientDTOMapper.mapToSummary(event.getAfter())));
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distinct trigrams of a normalized text
+     */
+    static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Postings of one gram or token as document slots; may hold stale and repeated slots, which search filters out
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addTo(BitSet slots) {
+            for (int i = 0; i < size; i++) {
+                slots.set(values[i]);
+            }
+        }
+    }
+
+    private static final class Index {
+
+        /**
+         * Documents by dense slot number, so postings stay small ints; a removed client leaves a null slot
+         */
+        private final List<Document> slots = new ArrayList<>();
+
+        private final Map<Long, Integer> slotsById = new HashMap<>();
+
+        private final Map<String, IntList> grams = new HashMap<>();
+
+        /**
+         * Words and whole fields in sorted order, so a prefix is a contiguous range
+         */
+        private final NavigableMap<String, IntList> tokens = new TreeMap<>();
+
+        private int documentCount;
+
+        private long postings;
+
+        private long stalePostings;
+
+        private void put(Document document) {
+            Integer slot = slotsById.get(document.id);
+            Document previous = null;
+            if (slot == null) {
+                slot = slots.size();
+                slots.add(document);
+                slotsById.put(document.id, slot);
+                documentCount++;
+            } else {
+                previous = slots.set(slot, document);
+            }
+            Set<String> previousGrams = previous != null ? previous.grams() : Set.of();
+            Set<String> previousTokens = previous != null ? previous.tokens : Set.of();
+            Set<String> currentGrams = document.grams();
+            for (String gram : currentGrams) {
+                if (!previousGrams.contains(gram)) {
+                    grams.computeIfAbsent(gram, key -> new IntList()).add(slot);
+                    postings++;
+                }
+            }
+            for (String token : document.tokens) {
+                if (!previousTokens.contains(token)) {
+                    tokens.computeIfAbsent(token, key -> new IntList()).add(slot);
+                    postings++;
+                }
+            }
+            for (String gram : previousGrams) {
+                if (!currentGrams.contains(gram)) {
+                    stalePostings++;
+                }
+            }
+            for (String token : previousTokens) {
+                if (!document.tokens.contains(token)) {
+                    stalePostings++;
+                }
+            }
+        }
+
+        private void remove(Long id) {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                Document previous = slots.set(slot, null);
+                stalePostings += previous.grams().size() + previous.tokens.size();
+                documentCount--;
+            }
+        }
+
+        private boolean needsCompaction() {
+            return stalePostings >= COMPACTION_MIN_STALE && stalePostings > postings * COMPACTION_RATIO;
+        }
+
+        private Index compact() {
+            Index compacted = new Index();
+            slots.stream().filter(Objects::nonNull).forEach(compacted::put);
+            return compacted;
+        }
+
+        /**
+         * Slots that may match: the postings of the query's rarest trigram, or of every token it prefixes
+         */
+        private BitSet candidates(String q) {
+            BitSet candidates = new BitSet(slots.size());
+            if (q.length() >= GRAM_LENGTH) {
+                IntList rarest = null;
+                for (String gram : grams(q)) {
+                    IntList postings = grams.get(gram);
+                    if (postings == null) {
+                        return candidates;
+                    }
+                    if (rarest == null || postings.size < rarest.size) {
+                        rarest = postings;
+                    }
+                }
+                rarest.addTo(candidates);
+            } else if (!q.isEmpty()) {
+                tokens.subMap(q, true, q + Character.MAX_VALUE, false).values()
+                        .forEach(postings -> postings.addTo(candidates));
+            }
+            return candidates;
+        }
+    }
+
+    /**
+     * One client's searchable text, normalized once when indexed
+     */
+    private static final class Document {
+
+        private final long id;
+
+        private final ClientSummaryDTO client;
+
+        /**
+         * First name, last name, full name, username and email
+         */
+        private final String[] fields;
+
+        private final Set<String> tokens;
+
+        private Document(ClientSummaryDTO client) {
+            this.id = client.getId();
+            this.client = client;
+            String firstName = normalize(client.getFirstName());
+            String lastName = normalize(client.getLastName());
+            this.fields = new String[]{firstName, lastName, (firstName + " " + lastName).trim(),
+                    normalize(client.getUsername()), normalize(client.getEmail())};
+            this.tokens = new HashSet<>();
+            for (String field : fields) {
+                if (!field.isEmpty()) {
+                    tokens.add(field);
+                }
+                for (String word : field.split("[^\\p{L}\\p{N}]+")) {
+                    if (!word.isEmpty()) {
+                        tokens.add(word);
+                    }
+                }
+            }
+        }
+
+        private Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            for (String field : fields) {
+                grams.addAll(ClientSearchIndex.grams(field));
+            }
+            return grams;
+        }
+
+        private int score(String q) {
+            int score = 0;
+            for (String field : fields) {
+                if (field.equals(q)) {
+                    return SCORE_EXACT;
+                }
+                if (field.startsWith(q)) {
+                    score = SCORE_FIELD_PREFIX;
+                }
+            }
+            if (score > 0) {
+                return score;
+            }
+            for (String token : tokens) {
+                if (token.startsWith(q)) {
+                    return SCORE_WORD_PREFIX;
+                }
+            }
+            if (q.length() < GRAM_LENGTH) {
+                return 0;
+            }
+            for (String field : fields) {
+                if (field.contains(q)) {
+                    return SCORE_SUBSTRING;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static final class Match {
+
+        private final long id;
+
+        private final int score;
+
+        private final ClientSummaryDTO client;
+
+        private Match(long id, int score, ClientSummaryDTO client) {
+            this.id = id;
+            this.score = score;
+            this.client = client;
+        }
+
+        private long id() {
+            return id;
+        }
+
+        private int score() {
+            return score;
+        }
+
+        private ClientSummaryDTO client() {
+            return client;
+        }
+    }
+}
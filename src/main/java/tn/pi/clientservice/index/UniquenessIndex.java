@@ -0,0 +1,249 @@
+package tn.pi.clientservice.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.dto.UniquenessIndexStatsDTO;
+import tn.pi.clientservice.repository.ClientStore;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * In-memory membership filter over normalized emails and usernames.
+ * A negative answer is definite and skips the database; a positive answer
+ * is only a hint and is confirmed through the repository.
+ */
+@Component
+public class UniquenessIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UniquenessIndex.class);
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${client.uniqueness-index.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${client.uniqueness-index.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    /**
+     * Filters answering lookups; null until the first build completes
+     */
+    private volatile Filters current;
+
+    /**
+     * Filters being rebuilt; writes made during a rebuild go to both
+     */
+    private volatile Filters building;
+
+    /**
+     * Held by {@link #add} and while the rebuild publishes or drops its filters, so an add made
+     * as the new filters take over lands in them, not only in the ones they replace
+     */
+    private final ReentrantLock filtersLock = new ReentrantLock();
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder definiteNegatives = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private final LongAdder staleEntries = new LongAdder();
+
+    /**
+     * Serializes rebuilds
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile LocalDateTime lastRebuildAt;
+
+    private volatile long lastRebuildMillis;
+
+    /**
+     * Build the filters once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Lookups keep going to the database until a rebuild succeeds
+            log.error("Uniqueness index build failed", e);
+        }
+    }
+
+    /**
+     * Rebuild both filters from the database, dropping entries of deleted clients
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            // Leave room for growth so the false-positive rate holds until the next rebuild
+            long capacity = Math.max(expectedInsertions, clientRepository.count() * 2);
+            Filters next = new Filters(capacity, falsePositiveRate);
+            swap(null, next);
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            Filters built = null;
+            try {
+                readOnly.executeWithoutResult(status -> {
+                    try (Stream<Object[]> keys = clientRepository.streamAllEmailsAndUsernames()) {
+                        keys.forEach(row -> next.put((String) row[0], (String) row[1]));
+                    }
+                });
+                built = next;
+            } finally {
+                swap(built, null);
+            }
+            staleEntries.reset();
+            lastRebuildAt = LocalDateTime.now();
+            lastRebuildMillis = System.currentTimeMillis() - start;
+            log.info("Uniqueness index rebuilt with {} clients in {} ms", next.emails.getInsertions(), lastRebuildMillis);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Check whether an email is taken, asking the database only when the filter cannot rule it out
+     */
+    public boolean emailExists(String email, Predicate<String> repositoryCheck) {
+        Filters filters = current;
+        return exists(filters == null ? null : filters.emails, email, repositoryCheck);
+    }
+
+    /**
+     * Check whether a username is taken, asking the database only when the filter cannot rule it out
+     */
+    public boolean usernameExists(String username, Predicate<String> repositoryCheck) {
+        Filters filters = current;
+        return exists(filters == null ? null : filters.usernames, username, repositoryCheck);
+    }
+
+    /**
+     * Record the email and username of a stored client
+     */
+    public void add(String email, String username) {
+        filtersLock.lock();
+        try {
+            if (current != null) {
+                current.put(email, username);
+            }
+            if (building != null) {
+                building.put(email, username);
+            }
+        } finally {
+            filtersLock.unlock();
+        }
+    }
+
+    /**
+     * Under the lock {@link #add} takes: publish the given filters if any, and set the ones being built
+     */
+    private void swap(Filters published, Filters building) {
+        filtersLock.lock();
+        try {
+            if (published != null) {
+                current = published;
+            }
+            this.building = building;
+        } finally {
+            filtersLock.unlock();
+        }
+    }
+
+    /**
+     * Record that a client was removed; its keys stay in the filter until the next rebuild
+     */
+    public void markRemoved() {
+        staleEntries.increment();
+    }
+
+    /**
+     * Filter sizing, fill and false-positive counters
+     */
+    public UniquenessIndexStatsDTO stats() {
+        Filters filters = current;
+        long negatives = definiteNegatives.sum();
+        long falseHits = falsePositives.sum();
+        long absent = negatives + falseHits;
+        UniquenessIndexStatsDTO.UniquenessIndexStatsDTOBuilder stats = UniquenessIndexStatsDTO.builder()
+                .ready(filters != null)
+                .checkCount(checks.sum())
+                .definiteNegativeCount(negatives)
+                .falsePositiveCount(falseHits)
+                .observedFalsePositiveRate(absent == 0 ? 0.0 : (double) falseHits / absent)
+                .staleEntryCount(staleEntries.sum())
+                .lastRebuildAt(lastRebuildAt)
+                .lastRebuildMillis(lastRebuildMillis);
+        if (filters != null) {
+            stats.emailCount(filters.emails.getInsertions())
+                    .usernameCount(filters.usernames.getInsertions())
+                    .bitCount(filters.emails.getBitCount())
+                    .hashCount(filters.emails.getHashCount())
+                    .expectedEmailFalsePositiveRate(filters.emails.expectedFalsePositiveRate())
+                    .expectedUsernameFalsePositiveRate(filters.usernames.expectedFalsePositiveRate());
+        }
+        return stats.build();
+    }
+
+    private boolean exists(BloomFilter filter, String value, Predicate<String> repositoryCheck) {
+        if (filter == null || value == null) {
+            return repositoryCheck.test(value);
+        }
+        checks.increment();
+        if (!filter.mightContain(normalize(value))) {
+            definiteNegatives.increment();
+            return false;
+        }
+        boolean exists = repositoryCheck.test(value);
+        if (!exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Lower-cased and trimmed, so the filter never misses a value the database would match
+     */
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Filters {
+
+        private final BloomFilter emails;
+
+        private final BloomFilter usernames;
+
+        private Filters(long capacity, double falsePositiveRate) {
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+            this.usernames = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        private void put(String email, String username) {
+            if (email != null) {
+                emails.put(normalize(email));
+            }
+            if (username != null) {
+                usernames.put(normalize(username));
+            }
+        }
+    }
+}
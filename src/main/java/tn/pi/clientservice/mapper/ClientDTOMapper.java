@@ -2,8 +2,13 @@ package tn.pi.clientservice.mapper;
 
 import org.springframework.stereotype.Component;
 import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
 import tn.pi.clientservice.entities.Client;
 import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+
+import java.util.Locale;
 
 
 @Component
@@ -29,10 +34,24 @@ public class ClientDTOMapper {
         dto.setStatus(client.getStatus());
         dto.setCreatedAt(client.getCreatedAt());
         dto.setUpdatedAt(client.getUpdatedAt());
+        dto.setVersion(client.getVersion());
 
         return dto;
     }
 
+    /**
+     * Convert ClientDTO to the read-only summary used by listings and search
+     */
+    public ClientSummaryDTO mapToSummary(ClientDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+
+        return new ClientSummaryDTO(dto.getId(), dto.getFirstName(), dto.getLastName(), dto.getEmail(),
+                dto.getPhone(), dto.getUsername(), dto.getAddress(), dto.getRole(), dto.getStatus(),
+                dto.getCreatedAt(), dto.getUpdatedAt());
+    }
+
     /**
      * Convert ClientDTO to Client entity
      */
@@ -60,6 +79,24 @@ public class ClientDTOMapper {
         return client;
     }
 
+    /**
+     * Build a new Client entity from registration input, with normalized fields,
+     * the given password hash, the default role and an ACTIVE status
+     */
+    public Client mapToNewClient(ClientDTO dto, String passwordHash) {
+        Client client = new Client();
+        client.setFirstName(dto.getFirstName().trim());
+        client.setLastName(dto.getLastName().trim());
+        client.setEmail(normalizeEmail(dto.getEmail()));
+        client.setPhone(dto.getPhone() != null ? dto.getPhone().trim() : null);
+        client.setUsername(normalizeUsername(dto.getUsername()));
+        client.setAddress(dto.getAddress() != null ? dto.getAddress().trim() : null);
+        client.setPassword(passwordHash);
+        client.setRole(dto.getRole() != null ? dto.getRole() : UserRole.CLIENT);
+        client.setStatus(UserStatus.ACTIVE);
+        return client;
+    }
+
     /**
      * Update existing Client entity with DTO values
      */
@@ -85,4 +122,51 @@ public class ClientDTOMapper {
 
         return client;
     }
-}
\ No newline at end of file
+
+    /**
+     * Apply the fields present in a partial update, normalized like registration input.
+     * Setting a field to its current value leaves the entity clean, so it is not written.
+     */
+    public Client applyPatch(ClientPatchDTO patch, Client client) {
+        if (patch.getFirstName() != null) {
+            client.setFirstName(patch.getFirstName().trim());
+        }
+        if (patch.getLastName() != null) {
+            client.setLastName(patch.getLastName().trim());
+        }
+        if (patch.getEmail() != null) {
+            client.setEmail(normalizeEmail(patch.getEmail()));
+        }
+        if (patch.getPhone() != null) {
+            client.setPhone(patch.getPhone().trim());
+        }
+        if (patch.getUsername() != null) {
+            client.setUsername(normalizeUsername(patch.getUsername()));
+        }
+        if (patch.getAddress() != null) {
+            client.setAddress(patch.getAddress().trim());
+        }
+        if (patch.getRole() != null) {
+            client.setRole(patch.getRole());
+        }
+        if (patch.getStatus() != null) {
+            client.setStatus(patch.getStatus());
+        }
+
+        return client;
+    }
+
+    /**
+     * Email as stored: trimmed and lower-cased
+     */
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Username as stored: trimmed, case kept (the column collation compares it case-insensitively)
+     */
+    public static String normalizeUsername(String username) {
+        return username.trim();
+    }
+}
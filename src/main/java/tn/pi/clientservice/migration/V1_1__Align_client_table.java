@@ -0,0 +1,150 @@
+package tn.pi.clientservice.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Brings the CLIENT table from the shape ddl-auto=update gave it (V1, or a database baselined
+ * there) to the managed schema: the unique constraints get the names the service reports
+ * duplicates by, the keyset listing indexes and the id sequence are created. In Java because
+ * the generated constraint names are not known in advance; each step checks first, so it is
+ * safe to run again and on a database where ddl-auto had already added some of these.
+ * <p>
+ * The id column keeps the auto-increment ddl-auto gave it: ids always come from the sequence
+ * (or, sharded, the directory), so it is never used.
+ */
+@Component
+public class V1_1__Align_client_table extends BaseJavaMigration {
+
+    private static final Map<String, String> UNIQUE_CONSTRAINTS = Map.of(
+            "email", "uk_client_email",
+            "username", "uk_client_username");
+
+    private static final Map<String, String> INDEXES = Map.of(
+            "idx_client_role_id", "role, id",
+            "idx_client_status_id", "status, id");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+        String schema = connection.getSchema() != null ? connection.getSchema() : connection.getCatalog();
+        String table = storedName(connection.getMetaData(), connection.getCatalog(), schema);
+        try (Statement statement = connection.createStatement()) {
+            Map<String, List<String>> uniques = uniqueConstraints(connection, schema, table);
+            for (Map.Entry<String, String> wanted : UNIQUE_CONSTRAINTS.entrySet()) {
+                String current = uniques.entrySet().stream()
+                        .filter(entry -> entry.getValue().size() == 1 && entry.getValue().get(0).equalsIgnoreCase(wanted.getKey()))
+                        .map(Map.Entry::getKey)
+                        .findFirst().orElse(null);
+                if (current == null) {
+                    statement.execute("alter table CLIENT add constraint " + wanted.getValue() + " unique (" + wanted.getKey() + ")");
+                } else if (!current.equalsIgnoreCase(wanted.getValue())) {
+                    // A MySQL unique constraint is its index; H2 names them apart
+                    statement.execute(mysql
+                            ? "alter table CLIENT rename index `" + current + "` to " + wanted.getValue()
+                            : "alter table CLIENT rename constraint \"" + current + "\" to " + wanted.getValue());
+                }
+            }
+
+            List<String> indexes = indexNames(connection.getMetaData(), connection.getCatalog(), schema, table);
+            for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+                if (indexes.stream().noneMatch(name -> name.equalsIgnoreCase(index.getKey()))) {
+                    statement.execute("create index " + index.getKey() + " on CLIENT (" + index.getValue() + ")");
+                }
+            }
+
+            if (mysql) {
+                // Table-backed sequence for the pooled id generator (MySQL has no native sequences);
+                // V2 moves it past the ids already assigned
+                statement.execute("create table if not exists client_seq (next_val bigint) engine = InnoDB");
+                statement.execute("insert into client_seq (next_val) select 1 from dual where not exists (select * from client_seq)");
+            } else {
+                statement.execute("create sequence if not exists client_seq start with 1 increment by 50");
+                movePastAssignedIds(statement);
+            }
+        }
+    }
+
+    /**
+     * Restart the H2 sequence one allocation block past the highest id, if it is not already beyond it
+     */
+    private static void movePastAssignedIds(Statement statement) throws SQLException {
+        long maxId;
+        try (ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) from CLIENT")) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+        long next;
+        try (ResultSet rs = statement.executeQuery(
+                "select base_value from information_schema.sequences where lower(sequence_name) = 'client_seq'")) {
+            rs.next();
+            next = rs.getLong(1);
+        }
+        if (maxId > 0 && next <= maxId) {
+            statement.execute("alter sequence client_seq restart with " + (maxId + 51));
+        }
+    }
+
+    /**
+     * Single- and multi-column unique constraints on the table, by name, with their columns
+     */
+    private static Map<String, List<String>> uniqueConstraints(Connection connection, String schema, String table)
+            throws SQLException {
+        Map<String, List<String>> constraints = new LinkedHashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "select tc.constraint_name, kcu.column_name from information_schema.table_constraints tc "
+                        + "join information_schema.key_column_usage kcu on kcu.constraint_schema = tc.constraint_schema "
+                        + "and kcu.constraint_name = tc.constraint_name and kcu.table_name = tc.table_name "
+                        + "where tc.table_schema = ? and tc.table_name = ? and tc.constraint_type = 'UNIQUE'")) {
+            ps.setString(1, schema);
+            ps.setString(2, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    constraints.computeIfAbsent(rs.getString(1), name -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+        }
+        return constraints;
+    }
+
+    private static List<String> indexNames(DatabaseMetaData metaData, String catalog, String schema, String table)
+            throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                if (rs.getString("INDEX_NAME") != null) {
+                    names.add(rs.getString("INDEX_NAME"));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * The client table's name in the case the database stored it in
+     */
+    private static String storedName(DatabaseMetaData metaData, String catalog, String schema) throws SQLException {
+        try (ResultSet rs = metaData.getTables(catalog, schema, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                if (rs.getString("TABLE_NAME").equalsIgnoreCase("client")) {
+                    return rs.getString("TABLE_NAME");
+                }
+            }
+        }
+        throw new SQLException("No CLIENT table in " + schema);
+    }
+}
@@ -0,0 +1,283 @@
+package tn.pi.clientservice.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.pi.clientservice.dto.ClientChangeDTO;
+import tn.pi.clientservice.event.ClientChangesRelayedEvent;
+import tn.pi.clientservice.exception.ServiceUnavailableException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Relays committed outbox rows to Server-Sent Events subscribers in id order.
+ * <p>
+ * Outbox ids are assigned at insert but become visible at commit, so a lower id
+ * can appear after a higher one. The relay only advances past a gap in the ids
+ * once it has waited the gap timeout since it first saw the gap (a rolled-back
+ * insert never fills its gap); anything at or below the relayed position is final,
+ * which is what makes an offset safe to resume from. A skipped id that still
+ * commits later, from a transaction open longer than the timeout, is not relayed:
+ * it is logged and counted in client.outbox.late.changes.
+ * <p>
+ * All sends happen on the polling thread. Subscribers at the relayed position
+ * share each newly read batch; subscribers resuming from an older offset catch
+ * up from the table, at most one batch per poll so they never hold up the rest.
+ */
+@Component
+public class ClientChangeRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientChangeRelay.class);
+
+    @Autowired
+    private ClientOutbox clientOutbox;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${client.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${client.outbox.gap-timeout-ms:10000}")
+    private long gapTimeoutMs;
+
+    @Value("${client.outbox.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${client.outbox.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${client.outbox.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${client.outbox.late-watch-ms:3600000}")
+    private long lateWatchMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter lateChanges;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Highest id delivered to subscribers that are caught up; -1 until the relay starts
+     */
+    private volatile long relayedUpTo = -1;
+
+    /**
+     * When each gap was first seen, by the id of the row after it; polling thread only
+     */
+    private final Map<Long, Long> gapsSeenAt = new HashMap<>();
+
+    /**
+     * Ids skipped at a timed-out gap, with when they were skipped, watched for a late commit; polling thread only
+     */
+    private final TreeMap<Long, Long> skippedIds = new TreeMap<>();
+
+    @PostConstruct
+    public void bindMetrics() {
+        lateChanges = Counter.builder("client.outbox.late.changes")
+                .description("Changes committed after the relay skipped their id, not relayed to caught-up subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start relaying from the current end of the outbox
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        relayedUpTo = clientOutbox.findMaxId();
+    }
+
+    /**
+     * Subscribe to client changes after the given offset, or from now on when none is given
+     */
+    public SseEmitter subscribe(Long after) {
+        if (relayedUpTo < 0) {
+            throw new ServiceUnavailableException("Change relay is starting, retry shortly");
+        }
+        if (after != null && after < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, after != null ? after : relayedUpTo);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        if (after != null) {
+            Long oldest = clientOutbox.findMinId();
+            if (oldest != null && after < oldest - 1) {
+                // The changes right after the offset may have been purged: tell the client to reload
+                try {
+                    emitter.send(SseEmitter.event().name("resync").data(oldest - 1));
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                    return emitter;
+                }
+            }
+        }
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Read newly committed outbox rows and push them to subscribers
+     */
+    @Scheduled(fixedDelayString = "${client.outbox.poll-interval-ms:500}")
+    public void relay() {
+        long previous = relayedUpTo;
+        if (previous < 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        reportLateChanges(now);
+        List<ClientChangeDTO> fresh = settled(previous, clientOutbox.findAfter(previous, batchSize), now);
+        long current = fresh.isEmpty() ? previous : fresh.get(fresh.size() - 1).getId();
+        relayedUpTo = current;
+        gapsSeenAt.keySet().removeIf(id -> id <= current);
+        if (!fresh.isEmpty()) {
+            eventPublisher.publishEvent(new ClientChangesRelayedEvent(fresh));
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            try {
+                if (subscriber.cursor == previous) {
+                    send(subscriber, fresh, now);
+                } else if (subscriber.cursor < current) {
+                    send(subscriber, clientOutbox.findBetween(subscriber.cursor, current, batchSize), now);
+                }
+                if (now - subscriber.lastSentAt >= heartbeatMs) {
+                    subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                    subscriber.lastSentAt = now;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks may not fire for a dropped connection
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Delete relayed changes past the retention period
+     */
+    @Scheduled(fixedDelayString = "${client.outbox.purge-interval-ms:3600000}",
+            initialDelayString = "${client.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        int deleted = clientOutbox.purgeOlderThan(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Purged {} client changes older than {} hours from the outbox", deleted, retentionHours);
+        }
+    }
+
+    /**
+     * Number of open change streams
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Keep the leading rows that are safe to relay: stop at the first gap that an in-flight transaction may still fill.
+     * The wait runs from when the gap was first seen; occurred_at is set before the commit, so the row of a long
+     * transaction may already look old when it becomes visible.
+     */
+    private List<ClientChangeDTO> settled(long previous, List<ClientChangeDTO> rows, long now) {
+        long expected = previous + 1;
+        for (int i = 0; i < rows.size(); i++) {
+            ClientChangeDTO row = rows.get(i);
+            if (row.getId() != expected) {
+                if (now - gapsSeenAt.computeIfAbsent(row.getId(), id -> now) < gapTimeoutMs) {
+                    return rows.subList(0, i);
+                }
+                skip(expected, row.getId(), now);
+            }
+            expected = row.getId() + 1;
+        }
+        return rows;
+    }
+
+    /**
+     * Watch the ids of a timed-out gap for a late commit; a gap wider than a batch is only logged
+     */
+    private void skip(long from, long to, long now) {
+        if (to - from > batchSize) {
+            log.warn("Skipped client change ids {} to {} after {} ms; too many to watch for late commits",
+                    from, to - 1, gapTimeoutMs);
+            return;
+        }
+        for (long id = from; id < to; id++) {
+            skippedIds.put(id, now);
+        }
+    }
+
+    /**
+     * Log and count the skipped ids that have since committed; they are below the relayed position and stay unsent
+     */
+    private void reportLateChanges(long now) {
+        skippedIds.values().removeIf(skippedAt -> now - skippedAt > lateWatchMs);
+        if (skippedIds.isEmpty()) {
+            return;
+        }
+        for (ClientChangeDTO change : clientOutbox.findIn(skippedIds.keySet().stream().limit(batchSize).toList())) {
+            skippedIds.remove(change.getId());
+            lateChanges.increment();
+            log.warn("Client change {} ({} of client {}) committed after the relay skipped it; not relayed",
+                    change.getId(), change.getType(), change.getClientId());
+        }
+    }
+
+    private static void send(Subscriber subscriber, List<ClientChangeDTO> changes, long now) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (ClientChangeDTO change : changes) {
+            if (change.getId() <= subscriber.cursor) {
+                continue;
+            }
+            subscriber.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(change.getId()))
+                    .name(change.getType().name())
+                    .data(change, MediaType.APPLICATION_JSON));
+            subscriber.cursor = change.getId();
+        }
+        subscriber.lastSentAt = now;
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        /**
+         * Id of the last change sent; only touched by the polling thread once registered
+         */
+        private volatile long cursor;
+
+        private volatile long lastSentAt;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.lastSentAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package tn.pi.clientservice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import tn.pi.clientservice.datasource.ShardRouting;
+import tn.pi.clientservice.datasource.ShardedDataSource;
+import tn.pi.clientservice.dto.ClientChangeDTO;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.enums.ClientChangeType;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Data access for the client_outbox table. Appends join the caller's transaction,
+ * so a change and its outbox row commit or roll back together.
+ * <p>
+ * With sharding each shard has its own outbox: a change's row is written on its client's shard,
+ * in the transaction writing the client there, with an id allocated from client_outbox_offset on
+ * the home shard, so that ids stay one sequence whatever the shard. Reads merge the shards in id
+ * order.
+ */
+@Component
+public class ClientOutbox {
+
+    private static final String INSERT =
+            "insert into client_outbox (client_id, type, payload, occurred_at) values (?, ?, ?, ?)";
+
+    private static final String INSERT_WITH_ID =
+            "insert into client_outbox (id, client_id, type, payload, occurred_at) values (?, ?, ?, ?, ?)";
+
+    private static final String ALLOCATE = "insert into client_outbox_offset (id) values (default)";
+
+    private static final String SELECT = "select id, client_id, type, payload, occurred_at from client_outbox ";
+
+    /**
+     * Ids deleted per statement when purging, keeping each delete short
+     */
+    private static final int PURGE_CHUNK = 10_000;
+
+    private static final RowMapper<ClientChangeDTO> ROW_MAPPER = (rs, rowNum) -> ClientChangeDTO.builder()
+            .id(rs.getLong("id"))
+            .clientId(rs.getLong("client_id"))
+            .type(ClientChangeType.valueOf(rs.getString("type")))
+            .occurredAt(rs.getTimestamp("occurred_at").toLocalDateTime())
+            .client(rs.getString("payload"))
+            .build();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClientDTOMapper clientDTOMapper;
+
+    @Autowired
+    private ObjectProvider<ShardedDataSource> shardedDataSource;
+
+    /**
+     * Record one change in the current transaction
+     */
+    public void append(ClientChangedEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * Record several changes in the current transaction with one JDBC batch
+     */
+    public void appendAll(List<ClientChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        ShardedDataSource shards = shardedDataSource.getIfAvailable();
+        if (shards == null) {
+            insert(jdbcTemplate, events);
+            return;
+        }
+        Map<Integer, List<ClientChangedEvent>> byShard = events.stream()
+                .collect(Collectors.groupingBy(event -> shards.shardOf(event.getClientId()), TreeMap::new, Collectors.toList()));
+        byShard.forEach((shard, group) -> {
+            // Fails if the current transaction wrote the client elsewhere, rather than splitting them
+            ShardRouting.joinTransaction(shard);
+            List<Long> ids = allocateIds(shards, group.size());
+            ShardRouting.on(shard, () -> jdbcTemplate.batchUpdate(INSERT_WITH_ID, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, ids.get(i));
+                    bind(ps, 2, group.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return group.size();
+                }
+            }));
+        });
+    }
+
+    private int[][] insert(JdbcTemplate jdbcTemplate, List<ClientChangedEvent> events) {
+        return jdbcTemplate.batchUpdate(INSERT, events, events.size(), (ps, event) -> bind(ps, 1, event));
+    }
+
+    private void bind(PreparedStatement ps, int first, ClientChangedEvent event) throws SQLException {
+        ps.setLong(first, event.getClientId());
+        ps.setString(first + 1, event.getType().name());
+        ps.setString(first + 2, payloadOf(event));
+        ps.setTimestamp(first + 3, Timestamp.valueOf(event.getOccurredAt()));
+    }
+
+    /**
+     * Take the next outbox ids on the home shard, in a transaction of its own that commits at once.
+     * Like an auto-increment id, one becomes visible when the change holding it commits.
+     */
+    private static List<Long> allocateIds(ShardedDataSource shards, int count) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        shards.inTransaction(ShardRouting.HOME, home -> home.batchUpdate(
+                connection -> connection.prepareStatement(ALLOCATE, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) {
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return count;
+                    }
+                }, keys));
+        // The key column's label differs between drivers; there is only one
+        return keys.getKeyList().stream().map(key -> ((Number) key.values().iterator().next()).longValue()).toList();
+    }
+
+    /**
+     * Changes with an id above the given one, in id order
+     */
+    public List<ClientChangeDTO> findAfter(long after, int limit) {
+        return query(SELECT + "where id > ? order by id limit ?", limit, after, limit);
+    }
+
+    /**
+     * Changes with an id above the first bound and up to the second, in id order
+     */
+    public List<ClientChangeDTO> findBetween(long after, long upTo, int limit) {
+        return query(SELECT + "where id > ? and id <= ? order by id limit ?", limit, after, upTo, limit);
+    }
+
+    /**
+     * Changes with any of the given ids, in id order
+     */
+    public List<ClientChangeDTO> findIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return query(SELECT + "where id in (" + placeholders + ") order by id", ids.size(), ids.toArray());
+    }
+
+    /**
+     * Highest id written so far, or 0 when the outbox is empty
+     */
+    public long findMaxId() {
+        return perShard(jdbcTemplate -> jdbcTemplate.queryForObject("select max(id) from client_outbox", Long.class))
+                .stream().filter(Objects::nonNull).max(Long::compare).orElse(0L);
+    }
+
+    /**
+     * Lowest id still retained, or null when the outbox is empty
+     */
+    public Long findMinId() {
+        return perShard(jdbcTemplate -> jdbcTemplate.queryForObject("select min(id) from client_outbox", Long.class))
+                .stream().filter(Objects::nonNull).min(Long::compare).orElse(null);
+    }
+
+    /**
+     * Delete changes that occurred before the cutoff, a chunk of ids at a time
+     */
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        int deleted = perShard(jdbcTemplate -> purge(jdbcTemplate, cutoff)).stream().mapToInt(Integer::intValue).sum();
+        ShardedDataSource shards = shardedDataSource.getIfAvailable();
+        if (shards != null) {
+            // Allocated offsets are only needed for the next one, which the last row gives
+            shards.inTransaction(ShardRouting.HOME, home -> home.update(
+                    "delete from client_outbox_offset where id < (select max(id) from (select id from client_outbox_offset) ids)"));
+        }
+        return deleted;
+    }
+
+    private static int purge(JdbcTemplate jdbcTemplate, LocalDateTime cutoff) {
+        Long upTo = jdbcTemplate.queryForObject("select max(id) from client_outbox where occurred_at < ?",
+                Long.class, Timestamp.valueOf(cutoff));
+        Long from = jdbcTemplate.queryForObject("select min(id) from client_outbox", Long.class);
+        if (upTo == null || from == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (long low = from - 1; low < upTo; low += PURGE_CHUNK) {
+            deleted += jdbcTemplate.update("delete from client_outbox where id > ? and id <= ?",
+                    low, Math.min(low + PURGE_CHUNK, upTo));
+        }
+        return deleted;
+    }
+
+    /**
+     * Run a query ordered by id and limited on every outbox, keeping the lowest ids across them
+     */
+    private List<ClientChangeDTO> query(String sql, int limit, Object... args) {
+        List<ClientChangeDTO> rows = new ArrayList<>();
+        perShard(jdbcTemplate -> jdbcTemplate.query(sql, ROW_MAPPER, args)).forEach(rows::addAll);
+        rows.sort(Comparator.comparing(ClientChangeDTO::getId));
+        return rows.size() <= limit ? rows : new ArrayList<>(rows.subList(0, limit));
+    }
+
+    /**
+     * Run work on the outbox, or on each shard's outbox with sharding
+     */
+    private <T> List<T> perShard(Function<JdbcTemplate, T> work) {
+        ShardedDataSource shards = shardedDataSource.getIfAvailable();
+        if (shards == null) {
+            return Collections.singletonList(work.apply(jdbcTemplate));
+        }
+        List<T> results = new ArrayList<>(shards.getShardCount());
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            results.add(shards.inTransaction(shard, work));
+        }
+        return results;
+    }
+
+    private String payloadOf(ClientChangedEvent event) {
+        ClientDTO state = event.getAfter() != null ? event.getAfter() : event.getBefore();
+        try {
+            return objectMapper.writeValueAsString(clientDTOMapper.mapToSummary(state));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize client change " + event.getType()
+                    + " for client " + event.getClientId(), e);
+        }
+    }
+}
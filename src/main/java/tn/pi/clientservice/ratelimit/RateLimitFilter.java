@@ -0,0 +1,216 @@
+package tn.pi.clientservice.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import tn.pi.clientservice.dto.ErrorResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the configured per-route limits, keyed by client IP and by the targeted account,
+ * before the request reaches a controller, so a rejected request never costs a query or a
+ * password hash. Runs after the security chain (the limited routes are public there) so
+ * CORS headers are still set on 429 responses.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Largest request body inspected for a body:&lt;field&gt; target; larger bodies are only IP-limited
+     */
+    private static final int MAX_INSPECTED_BODY = 16 * 1024;
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private List<LimitedRoute> routes = List.of();
+
+    @PostConstruct
+    public void init() {
+        List<LimitedRoute> compiled = new ArrayList<>();
+        properties.getRoutes().forEach((name, route) ->
+                compiled.add(new LimitedRoute(name, route, PathPatternParser.defaultInstance.parse(route.getPath()))));
+        routes = List.copyOf(compiled);
+        Gauge.builder("client.rate-limit.keys", rateLimiter, RateLimiter::trackedKeys)
+                .description("Rate limit buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        HttpServletRequest current = request;
+        for (LimitedRoute limited : routes) {
+            RateLimitProperties.Route route = limited.route();
+            if (route.getMethod() != null && !route.getMethod().equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            PathPattern.PathMatchInfo match = limited.pattern().matchAndExtract(path);
+            if (match == null) {
+                continue;
+            }
+            if (route.getPerIp() != null
+                    && reject(limited, "ip", request.getRemoteAddr(), route.getPerIp(), response)) {
+                return;
+            }
+            if (route.getPerTarget() != null && route.getTarget() != null) {
+                String target;
+                if (route.getTarget().startsWith("path:")) {
+                    target = match.getUriVariables().get(route.getTarget().substring("path:".length()));
+                } else {
+                    BufferedBodyRequest buffered = current instanceof BufferedBodyRequest b ? b : new BufferedBodyRequest(current);
+                    current = buffered;
+                    target = buffered.field(route.getTarget().substring("body:".length()));
+                }
+                if (target != null && !target.isBlank()
+                        && reject(limited, "target", target.trim().toLowerCase(Locale.ROOT), route.getPerTarget(), response)) {
+                    return;
+                }
+            }
+        }
+        chain.doFilter(current, response);
+    }
+
+    /**
+     * Take a request from the key's bucket, writing a 429 when it is empty
+     */
+    private boolean reject(LimitedRoute limited, String keyType, String key, RateLimitProperties.Limit limit,
+                           HttpServletResponse response) throws IOException {
+        long waitNanos = rateLimiter.tryAcquire(limited.name() + ':' + keyType + ':' + key, limit);
+        if (waitNanos == 0) {
+            return false;
+        }
+        meterRegistry.counter("client.rate-limit.rejected", "route", limited.name(), "key", keyType).increment();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.TOO_MANY_REQUESTS);
+        return true;
+    }
+
+    private record LimitedRoute(String name, RateLimitProperties.Route route, PathPattern pattern) {
+    }
+
+    /**
+     * Reads the head of the body once to find the target field, then replays it ahead of the rest of the stream
+     */
+    private final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] head;
+
+        private final ServletInputStream body;
+
+        private JsonNode json;
+
+        private BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            ServletInputStream original = request.getInputStream();
+            this.head = original.readNBytes(MAX_INSPECTED_BODY + 1);
+            InputStream replay = new SequenceInputStream(new ByteArrayInputStream(head), original);
+            this.body = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = replay.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = replay.read(buffer, offset, length);
+                    finished = n < 0;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // Always ready, so the listener reads it all on the first call
+                    try {
+                        listener.onDataAvailable();
+                        if (finished) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        private String field(String name) {
+            if (head.length > MAX_INSPECTED_BODY) {
+                return null;
+            }
+            if (json == null) {
+                try {
+                    json = objectMapper.readTree(head);
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+            JsonNode value = json == null ? null : json.get(name);
+            return value != null && value.isTextual() ? value.asText() : null;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+    }
+}
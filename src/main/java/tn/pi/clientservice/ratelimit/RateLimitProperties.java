@@ -0,0 +1,72 @@
+package tn.pi.clientservice.ratelimit;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-route request limits, bound from client.rate-limit.*; startup fails on a limit that is not positive
+ */
+@Data
+@Validated
+@Component
+@ConfigurationProperties(prefix = "client.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on tracked keys (IP or target per route); idle keys expire on their own well before this
+     */
+    private long maxKeys = 100_000;
+
+    @Valid
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Data
+    public static class Route {
+
+        /**
+         * HTTP method, or null for any
+         */
+        private String method;
+
+        /**
+         * Path pattern below the context path, e.g. /clients/email/{email}/**
+         */
+        private String path;
+
+        @Valid
+        private Limit perIp;
+
+        /**
+         * Where the targeted account comes from: body:&lt;json field&gt; or path:&lt;variable&gt;
+         */
+        private String target;
+
+        @Valid
+        private Limit perTarget;
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Sustained rate
+         */
+        @Positive
+        private int requestsPerMinute;
+
+        /**
+         * Requests allowed back to back before the rate applies
+         */
+        @Positive
+        private int burst = 1;
+    }
+}
@@ -0,0 +1,92 @@
+package tn.pi.clientservice.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets in their GCRA form: each key holds one timestamp, the theoretical arrival
+ * time of the next request, advanced by compare-and-set, so concurrent requests on a key
+ * never block each other. A bucket that has refilled behaves exactly like a missing one,
+ * so each entry expires as soon as it is full again; memory follows the keys that are
+ * actually being limited, with a hard cap on top.
+ */
+@Component
+public class RateLimiter {
+
+    private final Cache<String, Bucket> buckets;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfter(new Expiry<String, Bucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, Bucket bucket, long currentTime) {
+                        return bucket.nanosUntilFull(currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Bucket bucket, long currentTime, long currentDuration) {
+                        return bucket.nanosUntilFull(currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Bucket bucket, long currentTime, long currentDuration) {
+                        return bucket.nanosUntilFull(currentTime);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Take one request from the key's bucket.
+     *
+     * @return 0 when allowed, otherwise the nanoseconds until a request would be
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        long emissionNanos = TimeUnit.MINUTES.toNanos(1) / limit.getRequestsPerMinute();
+        long toleranceNanos = emissionNanos * (Math.max(limit.getBurst(), 1) - 1);
+        Bucket bucket = buckets.get(key, k -> new Bucket(emissionNanos));
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = bucket.theoreticalArrival.get();
+            long base = Math.max(arrival, now);
+            long wait = base - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.theoreticalArrival.compareAndSet(arrival, base + emissionNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Number of keys currently tracked
+     */
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+
+        private final long emissionNanos;
+
+        private Bucket(long emissionNanos) {
+            this.emissionNanos = emissionNanos;
+        }
+
+        /**
+         * Time until the bucket is full again; one interval of slack covers a request racing the expiry update
+         */
+        private long nanosUntilFull(long now) {
+            return Math.max(theoreticalArrival.get() - now, 0) + emissionNanos;
+        }
+    }
+}
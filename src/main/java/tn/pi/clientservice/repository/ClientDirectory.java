@@ -0,0 +1,166 @@
+package tn.pi.clientservice.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import tn.pi.clientservice.datasource.ShardRouting;
+import tn.pi.clientservice.datasource.ShardedDataSource;
+import tn.pi.clientservice.entities.Client;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The shard directory (client_directory, on the home shard). It allocates client ids and holds
+ * every client's email and username under unique constraints, which keeps them unique across
+ * shards and resolves a lookup by email or username to the one shard holding the client.
+ * A soft-deleted client keeps its row here until the purge removes both.
+ * <p>
+ * Statements run on the home shard's own pool in transactions of their own, never in a client's:
+ * a write here commits first, and {@link #resync} reverts it if the client's write does not.
+ */
+public class ClientDirectory {
+
+    private static final String INSERT = "insert into client_directory (email, username) values (?, ?)";
+
+    private final ShardedDataSource shards;
+
+    public ClientDirectory(ShardedDataSource shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Allocate ids to new clients and claim their emails and usernames: all of them, or none if
+     * one is already taken (a DataIntegrityViolationException naming the constraint)
+     */
+    public void claim(List<? extends Client> clients) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        onHome(jdbcTemplate -> jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setString(1, clients.get(i).getEmail());
+                        ps.setString(2, clients.get(i).getUsername());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return clients.size();
+                    }
+                }, keys));
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < clients.size(); i++) {
+            // The key column's label differs between drivers; there is only one
+            clients.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    /**
+     * Id of the client holding the email, or null
+     */
+    public Long idOfEmail(String email) {
+        return onHome(jdbcTemplate -> jdbcTemplate.queryForList(
+                "select id from client_directory where email = ?", Long.class, email)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Id of the client holding the username, or null
+     */
+    public Long idOfUsername(String username) {
+        return onHome(jdbcTemplate -> jdbcTemplate.queryForList(
+                "select id from client_directory where username = ?", Long.class, username)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Ids of the clients holding the given emails, by email as stored
+     */
+    public Map<String, Long> idsOfEmails(Collection<String> emails) {
+        return idsOf("email", emails);
+    }
+
+    /**
+     * Ids of the clients holding the given usernames, by username as stored
+     */
+    public Map<String, Long> idsOfUsernames(Collection<String> usernames) {
+        return idsOf("username", usernames);
+    }
+
+    /**
+     * Ids of the clients holding the email or the username
+     */
+    public List<Long> idsHolding(String email, String username) {
+        return onHome(jdbcTemplate -> jdbcTemplate.queryForList(
+                "select id from client_directory where email = ? or username = ?", Long.class, email, username));
+    }
+
+    /**
+     * Move a client's row to its new email and username; fails like {@link #claim} if another client holds either
+     */
+    public void rename(long id, String email, String username) {
+        onHome(jdbcTemplate -> jdbcTemplate.update(
+                "update client_directory set email = ?, username = ? where id = ?", email, username, id));
+    }
+
+    /**
+     * Bring the rows of the given clients back in line with what their shards committed, after
+     * a write that claimed or renamed them did not commit: rows of clients with no row left on
+     * their shard are removed, so their email and username are free again
+     *
+     * @return the number of rows removed
+     */
+    public int resync(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = ids.stream().distinct().collect(Collectors.groupingBy(shards::shardOf));
+        Map<Long, String[]> committed = new HashMap<>();
+        byShard.forEach((shard, shardIds) -> shards.inTransaction(shard, jdbcTemplate -> {
+            // Soft-deleted rows still hold their keys, so they are not filtered out
+            jdbcTemplate.query("select id, email, username from CLIENT where id in (" + placeholders(shardIds.size()) + ")",
+                    rs -> {
+                        committed.put(rs.getLong(1), new String[]{rs.getString(2), rs.getString(3)});
+                    }, shardIds.toArray());
+            return null;
+        }));
+        List<Long> gone = ids.stream().distinct().filter(id -> !committed.containsKey(id)).toList();
+        return onHome(jdbcTemplate -> {
+            committed.forEach((id, keys) -> jdbcTemplate.update(
+                    "update client_directory set email = ?, username = ? where id = ?", keys[0], keys[1], id));
+            return gone.isEmpty() ? 0 : jdbcTemplate.update(
+                    "delete from client_directory where id in (" + placeholders(gone.size()) + ")", gone.toArray());
+        });
+    }
+
+    private Map<String, Long> idsOf(String column, Collection<String> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> ids = new HashMap<>();
+        onHome(jdbcTemplate -> {
+            jdbcTemplate.query("select " + column + ", id from client_directory where " + column + " in ("
+                            + placeholders(values.size()) + ")",
+                    rs -> {
+                        ids.put(rs.getString(1), rs.getLong(2));
+                    }, values.toArray());
+            return null;
+        });
+        return ids;
+    }
+
+    private <T> T onHome(Function<JdbcTemplate, T> work) {
+        return shards.inTransaction(ShardRouting.HOME, work);
+    }
+
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,54 @@
+package tn.pi.clientservice.repository;
+
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.pi.clientservice.entities.Client;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves a client's directory row when an update changes its email or username, before the
+ * UPDATE is sent, so a key held by a client on another shard fails the update as the unique
+ * constraints would without sharding. If the transaction does not commit, the row is put back.
+ */
+public class ClientDirectoryUpdateListener implements PreUpdateEventListener {
+
+    private final ClientDirectory directory;
+
+    public ClientDirectoryUpdateListener(ClientDirectory directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        if (!(event.getEntity() instanceof Client client)) {
+            return false;
+        }
+        EntityPersister persister = event.getPersister();
+        int email = persister.getPropertyIndex("email");
+        int username = persister.getPropertyIndex("username");
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        if (oldState != null && Objects.equals(oldState[email], state[email])
+                && Objects.equals(oldState[username], state[username])) {
+            return false;
+        }
+        directory.rename(client.getId(), (String) state[email], (String) state[username]);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            long id = client.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        directory.resync(List.of(id));
+                    }
+                }
+            });
+        }
+        return false;
+    }
+}
@@ -1,21 +1,82 @@
 package tn.pi.clientservice.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
 import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * JPA queries behind ClientStore, against one database
+ */
+public interface ClientRepository extends JpaRepository<Client, Integer>, ClientRepositoryCustom, ClientStore {
+    /**
+     * Number of rows pulled per round trip when streaming clients
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Constructor projection onto ClientSummaryDTO, shared by the listing queries
+     */
+    String SUMMARY_SELECT = "select new tn.pi.clientservice.dto.ClientSummaryDTO("
+            + "c.id, c.firstName, c.lastName, c.email, c.phone, c.username, c.address, "
+            + "c.role, c.status, c.createdAt, c.updatedAt) from Client c ";
+
+    // Inherited from both JpaRepository and ClientStore; declared once here so that calls resolve
+
+    @Override
+    Optional<Client> findById(Integer id);
+
+    @Override
+    <S extends Client> S save(S entity);
+
+    @Override
+    <S extends Client> S saveAndFlush(S entity);
+
+    @Override
+    void delete(Client entity);
+
+    @Override
+    default <S extends Client> List<S> saveAll(Iterable<S> entities, Consumer<List<S>> written) {
+        List<S> saved = saveAll(entities);
+        flush();
+        written.accept(saved);
+        return saved;
+    }
 
-public interface ClientRepository extends JpaRepository<Client, Integer> {
     /**
-     * Find client by email
+     * Find client by email; read-only like findById, so it can be served by a read replica.
+     * Email is not the natural id, so the result (the client's id) goes to the query cache instead.
      */
+    @Transactional(readOnly = true)
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = Client.EMAIL_QUERY_CACHE_REGION)
+    })
     Optional<Client> findByEmail(String email);
 
     /**
-     * Find client by username
+     * Find the clients with any of the given emails, in one query
      */
-    Optional<Client> findByUsername(String username);
+    @Transactional(readOnly = true)
+    List<Client> findByEmailIn(Collection<String> emails);
 
     /**
      * Check if email exists
@@ -30,15 +91,98 @@ public interface ClientRepository extends JpaRepository<Client, Integer> {
     /**
      * Find all clients by role
      */
-    List<Client> findByRole(String role);
+    List<Client> findByRole(UserRole role);
 
     /**
      * Find all clients by status
      */
-    List<Client> findByStatus(String status);
+    List<Client> findByStatus(UserStatus status);
+
+    /**
+     * List the clients with a role, ordered by id
+     */
+    @Query(SUMMARY_SELECT + "where c.role = :role order by c.id")
+    List<ClientSummaryDTO> findSummariesByRole(@Param("role") UserRole role);
+
+    /**
+     * List the clients with a role following the given id cursor (keyset pagination)
+     */
+    @Query(SUMMARY_SELECT + "where c.role = :role and c.id > :after order by c.id")
+    List<ClientSummaryDTO> findSummariesByRoleAfter(@Param("role") UserRole role, @Param("after") Long after, Limit limit);
+
+    /**
+     * List the clients with a status, ordered by id
+     */
+    @Query(SUMMARY_SELECT + "where c.status = :status order by c.id")
+    List<ClientSummaryDTO> findSummariesByStatus(@Param("status") UserStatus status);
+
+    /**
+     * List the clients with a status following the given id cursor (keyset pagination)
+     */
+    @Query(SUMMARY_SELECT + "where c.status = :status and c.id > :after order by c.id")
+    List<ClientSummaryDTO> findSummariesByStatusAfter(@Param("status") UserStatus status, @Param("after") Long after, Limit limit);
 
     /**
      * Check if both email and username exist (for validation)
      */
     boolean existsByEmailOrUsername(String email, String username);
+
+    /**
+     * Find which of the given emails are already taken
+     */
+    @Query("select c.email from Client c where c.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Find which of the given usernames are already taken
+     */
+    @Query("select c.username from Client c where c.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Find the clients following the given id cursor, ordered by id (keyset pagination)
+     */
+    List<Client> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Stream all clients ordered by id through a forward-only, read-only cursor
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select c from Client c order by c.id")
+    Stream<Client> streamAllOrderedById();
+
+    /**
+     * Count clients per role
+     */
+    @Query("select c.role, count(c) from Client c group by c.role")
+    List<Object[]> countByRole();
+
+    /**
+     * Count clients per status
+     */
+    @Query("select c.status, count(c) from Client c group by c.status")
+    List<Object[]> countByStatus();
+
+    /**
+     * Count clients per registration day
+     */
+    @Query("select cast(c.createdAt as LocalDate), count(c) from Client c group by cast(c.createdAt as LocalDate)")
+    List<Object[]> countByRegistrationDay();
+
+    /**
+     * Stream every client as a summary projection, ordered by id
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SUMMARY_SELECT + "order by c.id")
+    Stream<ClientSummaryDTO> streamAllSummaries();
+
+    /**
+     * Stream the email and username of every client
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select c.email, c.username from Client c")
+    Stream<Object[]> streamAllEmailsAndUsernames();
 }
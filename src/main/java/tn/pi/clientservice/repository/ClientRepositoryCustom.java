@@ -0,0 +1,30 @@
+package tn.pi.clientservice.repository;
+
+import tn.pi.clientservice.entities.Client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Client lookups implemented against the Hibernate session rather than derived from method names
+ */
+public interface ClientRepositoryCustom {
+
+    /**
+     * Find client by username, through the natural-id cache when it holds the username
+     */
+    Optional<Client> findByUsername(String username);
+
+    /**
+     * Load the clients with the given ids: cached ones from the second-level cache, the rest in one query.
+     * Unknown ids are left out.
+     */
+    List<Client> loadAllById(Collection<Long> ids);
+
+    /**
+     * Load the clients with the given usernames, resolving cached usernames without SQL and the rest in one query.
+     * Unknown usernames are left out.
+     */
+    List<Client> loadAllByUsername(Collection<String> usernames);
+}
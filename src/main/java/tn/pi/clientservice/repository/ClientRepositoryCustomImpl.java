@@ -0,0 +1,57 @@
+package tn.pi.clientservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import tn.pi.clientservice.entities.Client;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+public class ClientRepositoryCustomImpl implements ClientRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Resolves username -> id from the natural-id region, then the client from the entity region;
+     * only a miss in either queries the database. Read-only, so it can be served by a read replica.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Client> findByUsername(String username) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Client.class).loadOptional(username);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Client> loadAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // One batch for all the misses; Hibernate returns null in place of an unknown id
+        return entityManager.unwrap(Session.class).byMultipleIds(Client.class)
+                .withBatchSize(ids.size())
+                .multiLoad(List.copyOf(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Client> loadAllByUsername(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class).byMultipleNaturalId(Client.class)
+                .withBatchSize(usernames.size())
+                .multiLoad(List.copyOf(usernames))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
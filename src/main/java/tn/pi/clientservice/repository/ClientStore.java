@@ -0,0 +1,138 @@
+package tn.pi.clientservice.repository;
+
+import org.springframework.data.domain.Limit;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The client storage operations the services use. ClientRepository provides them against one
+ * database; with sharding enabled, ShardedClientRepository routes them across the shards.
+ * Inject this rather than ClientRepository, so that both are served.
+ */
+public interface ClientStore extends ClientRepositoryCustom {
+
+    /**
+     * Find client by id
+     */
+    Optional<Client> findById(Integer id);
+
+    /**
+     * Find client by email
+     */
+    Optional<Client> findByEmail(String email);
+
+    /**
+     * Find the clients with any of the given emails
+     */
+    List<Client> findByEmailIn(Collection<String> emails);
+
+    /**
+     * Check if email exists
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Check if username exists
+     */
+    boolean existsByUsername(String username);
+
+    /**
+     * Find which of the given emails are already taken
+     */
+    List<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Find which of the given usernames are already taken
+     */
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    /**
+     * All clients
+     */
+    List<Client> findAll();
+
+    /**
+     * List the clients with a role, ordered by id
+     */
+    List<ClientSummaryDTO> findSummariesByRole(UserRole role);
+
+    /**
+     * List the clients with a role following the given id cursor
+     */
+    List<ClientSummaryDTO> findSummariesByRoleAfter(UserRole role, Long after, Limit limit);
+
+    /**
+     * List the clients with a status, ordered by id
+     */
+    List<ClientSummaryDTO> findSummariesByStatus(UserStatus status);
+
+    /**
+     * List the clients with a status following the given id cursor
+     */
+    List<ClientSummaryDTO> findSummariesByStatusAfter(UserStatus status, Long after, Limit limit);
+
+    /**
+     * Find the clients following the given id cursor, ordered by id
+     */
+    List<Client> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Stream all clients ordered by id
+     */
+    Stream<Client> streamAllOrderedById();
+
+    /**
+     * Stream every client as a summary projection, ordered by id
+     */
+    Stream<ClientSummaryDTO> streamAllSummaries();
+
+    /**
+     * Stream the email and username of every client
+     */
+    Stream<Object[]> streamAllEmailsAndUsernames();
+
+    /**
+     * Number of clients
+     */
+    long count();
+
+    /**
+     * Count clients per role
+     */
+    List<Object[]> countByRole();
+
+    /**
+     * Count clients per status
+     */
+    List<Object[]> countByStatus();
+
+    /**
+     * Count clients per registration day
+     */
+    List<Object[]> countByRegistrationDay();
+
+    <S extends Client> S save(S entity);
+
+    <S extends Client> S saveAndFlush(S entity);
+
+    <S extends Client> List<S> saveAll(Iterable<S> entities);
+
+    /**
+     * Save clients, then hand them to the given work in the same transaction once their rows are
+     * written, so that what it records commits or rolls back with them. With sharding it runs once
+     * per shard, on that shard's clients, in the shard's own transaction.
+     */
+    <S extends Client> List<S> saveAll(Iterable<S> entities, Consumer<List<S>> written);
+
+    void flush();
+
+    void delete(Client entity);
+}
@@ -0,0 +1,482 @@
+package tn.pi.clientservice.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.datasource.ShardRouting;
+import tn.pi.clientservice.datasource.ShardedDataSource;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ClientStore over clients spread across shards by a hash of their id (see ShardingConfig),
+ * delegating to the ClientRepository of whichever shard a call is routed to.
+ * <ul>
+ *     <li>By id: the call goes to the client's shard, in the caller's transaction, which is then
+ *     bound to that shard.</li>
+ *     <li>By email or username: the directory gives the id, then as above; existence checks and
+ *     lookups of several keys query each shard involved in a read-only transaction of their own.</li>
+ *     <li>Listings and counts: each shard is queried in parallel, in a read-only transaction of
+ *     its own, and the results are merged in id order or summed. Keyset pages take the page's
+ *     size from every shard and keep the lowest ids. The stream methods page through the shards
+ *     the same way instead of holding a cursor open, so they are not one snapshot.</li>
+ *     <li>Inserts: the directory allocates the ids and claims the emails and usernames first.
+ *     saveAll writes each shard's clients (and what the caller records about them) in a
+ *     transaction of its own; if one fails, or the caller's transaction rolls back, the rows
+ *     written are removed again.</li>
+ * </ul>
+ */
+public class ShardedClientRepository implements ClientStore, DisposableBean {
+
+    private static final int STREAM_PAGE_SIZE = Integer.parseInt(ClientRepository.STREAM_FETCH_SIZE);
+
+    private final ClientRepository target;
+
+    private final ShardedDataSource shards;
+
+    private final ClientDirectory directory;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ExecutorService executor;
+
+    public ShardedClientRepository(ClientRepository target, ShardedDataSource shards, ClientDirectory directory,
+                                   PlatformTransactionManager transactionManager,
+                                   EntityManagerFactory entityManagerFactory, int scatterThreads) {
+        this.target = target;
+        this.shards = shards;
+        this.directory = directory;
+        this.transactionManager = transactionManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.executor = Executors.newFixedThreadPool(scatterThreads, new CustomizableThreadFactory("client-shard-"));
+    }
+
+    // --- By id
+
+    @Override
+    public Optional<Client> findById(Integer id) {
+        return onShardOf(id, () -> target.findById(id));
+    }
+
+    @Override
+    public void delete(Client entity) {
+        onShardOf(entity.getId(), () -> {
+            target.delete(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Client> loadAllById(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = ids.stream().collect(Collectors.groupingBy(shards::shardOf, TreeMap::new, Collectors.toList()));
+        List<Client> found = new ArrayList<>();
+        byShard.forEach((shard, shardIds) -> found.addAll(readOnShard(shard, () -> target.loadAllById(shardIds))));
+        return found;
+    }
+
+    // --- By email or username, through the directory
+
+    @Override
+    public Optional<Client> findByEmail(String email) {
+        Long id = directory.idOfEmail(email);
+        return id == null ? Optional.empty() : onShardOf(id, () -> target.findByEmail(email));
+    }
+
+    @Override
+    public Optional<Client> findByUsername(String username) {
+        Long id = directory.idOfUsername(username);
+        return id == null ? Optional.empty() : onShardOf(id, () -> target.findByUsername(username));
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        Long id = directory.idOfEmail(email);
+        // The client may be soft-deleted, which only its shard knows
+        return id != null && readOnShard(shards.shardOf(id), () -> target.existsByEmail(email));
+    }
+
+    @Override
+    public boolean existsByUsername(String username) {
+        Long id = directory.idOfUsername(username);
+        return id != null && readOnShard(shards.shardOf(id), () -> target.existsByUsername(username));
+    }
+
+    @Override
+    public List<Client> findByEmailIn(Collection<String> emails) {
+        return byHolderShard(directory.idsOfEmails(emails), target::findByEmailIn);
+    }
+
+    @Override
+    public List<String> findExistingEmails(Collection<String> emails) {
+        return byHolderShard(directory.idsOfEmails(emails), target::findExistingEmails);
+    }
+
+    @Override
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return byHolderShard(directory.idsOfUsernames(usernames), target::findExistingUsernames);
+    }
+
+    @Override
+    public List<Client> loadAllByUsername(Collection<String> usernames) {
+        return byHolderShard(directory.idsOfUsernames(usernames), target::loadAllByUsername);
+    }
+
+    // --- Listings and counts, on every shard
+
+    @Override
+    public List<Client> findAll() {
+        return sortedById(scatter(shard -> target.findAll()), Client::getId);
+    }
+
+    @Override
+    public List<ClientSummaryDTO> findSummariesByRole(UserRole role) {
+        return mergeById(scatter(shard -> target.findSummariesByRole(role)), ClientSummaryDTO::getId, Limit.unlimited());
+    }
+
+    @Override
+    public List<ClientSummaryDTO> findSummariesByRoleAfter(UserRole role, Long after, Limit limit) {
+        return mergeById(scatter(shard -> target.findSummariesByRoleAfter(role, after, limit)), ClientSummaryDTO::getId, limit);
+    }
+
+    @Override
+    public List<ClientSummaryDTO> findSummariesByStatus(UserStatus status) {
+        return mergeById(scatter(shard -> target.findSummariesByStatus(status)), ClientSummaryDTO::getId, Limit.unlimited());
+    }
+
+    @Override
+    public List<ClientSummaryDTO> findSummariesByStatusAfter(UserStatus status, Long after, Limit limit) {
+        return mergeById(scatter(shard -> target.findSummariesByStatusAfter(status, after, limit)), ClientSummaryDTO::getId, limit);
+    }
+
+    @Override
+    public List<Client> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit) {
+        return mergeById(scatter(shard -> target.findByIdGreaterThanOrderByIdAsc(id, limit)), Client::getId, limit);
+    }
+
+    @Override
+    public long count() {
+        return scatter(shard -> List.of(target.count())).stream().mapToLong(counts -> counts.get(0)).sum();
+    }
+
+    @Override
+    public List<Object[]> countByRole() {
+        return sumCounts(scatter(shard -> target.countByRole()));
+    }
+
+    @Override
+    public List<Object[]> countByStatus() {
+        return sumCounts(scatter(shard -> target.countByStatus()));
+    }
+
+    @Override
+    public List<Object[]> countByRegistrationDay() {
+        return sumCounts(scatter(shard -> target.countByRegistrationDay()));
+    }
+
+    @Override
+    public Stream<Client> streamAllOrderedById() {
+        return pagedById();
+    }
+
+    @Override
+    public Stream<ClientSummaryDTO> streamAllSummaries() {
+        return pagedById().map(client -> new ClientSummaryDTO(client.getId(), client.getFirstName(), client.getLastName(),
+                client.getEmail(), client.getPhone(), client.getUsername(), client.getAddress(), client.getRole(),
+                client.getStatus(), client.getCreatedAt(), client.getUpdatedAt()));
+    }
+
+    @Override
+    public Stream<Object[]> streamAllEmailsAndUsernames() {
+        return pagedById().map(client -> new Object[]{client.getEmail(), client.getUsername()});
+    }
+
+    // --- Writes
+
+    @Override
+    public <S extends Client> S save(S entity) {
+        return write(entity, () -> target.save(entity));
+    }
+
+    @Override
+    public <S extends Client> S saveAndFlush(S entity) {
+        return write(entity, () -> target.saveAndFlush(entity));
+    }
+
+    @Override
+    public <S extends Client> List<S> saveAll(Iterable<S> entities) {
+        return writeAll(entities, written -> {
+        });
+    }
+
+    @Override
+    public <S extends Client> List<S> saveAll(Iterable<S> entities, Consumer<List<S>> written) {
+        return writeAll(entities, written);
+    }
+
+    @Override
+    public void flush() {
+        target.flush();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Run a call on the client's shard in the caller's transaction, if any, binding it to that shard
+     */
+    private <T> T onShardOf(long id, Supplier<T> call) {
+        int shard = shards.shardOf(id);
+        ShardRouting.joinTransaction(shard);
+        return ShardRouting.on(shard, call);
+    }
+
+    /**
+     * Run a call on a shard in a read-only transaction of its own, leaving the caller's alone
+     */
+    private <T> T readOnShard(int shard, Supplier<T> call) {
+        return inOwnTransaction(shard, true, call);
+    }
+
+    private <T> T inOwnTransaction(int shard, boolean readOnly, Supplier<T> call) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(readOnly);
+        return ShardRouting.on(shard, () -> transaction.execute(status -> call.get()));
+    }
+
+    /**
+     * Query the shards holding the given keys (key as stored to client id) for their own keys, and combine the results
+     */
+    private <T> List<T> byHolderShard(Map<String, Long> ids, Function<Collection<String>, List<T>> query) {
+        Map<Integer, List<String>> byShard = new TreeMap<>();
+        ids.forEach((key, id) -> byShard.computeIfAbsent(shards.shardOf(id), shard -> new ArrayList<>()).add(key));
+        List<T> found = new ArrayList<>();
+        byShard.forEach((shard, keys) -> found.addAll(readOnShard(shard, () -> query.apply(keys))));
+        return found;
+    }
+
+    /**
+     * Run a query on every shard in parallel, each in a read-only transaction of its own
+     *
+     * @return the results, by shard
+     */
+    private <T> List<List<T>> scatter(IntFunction<List<T>> query) {
+        List<Future<List<T>>> futures = new ArrayList<>(shards.getShardCount());
+        for (int shard = 0; shard < shards.getShardCount(); shard++) {
+            int queried = shard;
+            futures.add(executor.submit(() -> readOnShard(queried, () -> query.apply(queried))));
+        }
+        List<List<T>> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<List<T>> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the client shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Merge lists each ordered by id into one, up to the limit
+     */
+    static <T> List<T> mergeById(List<List<T>> parts, Function<T, Long> idOf, Limit limit) {
+        int max = limit.isLimited() ? limit.max() : Integer.MAX_VALUE;
+        // Heads of the parts, as {part, index}, lowest id first
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                Comparator.comparing((int[] head) -> idOf.apply(parts.get(head[0]).get(head[1]))));
+        int total = 0;
+        for (int part = 0; part < parts.size(); part++) {
+            total += parts.get(part).size();
+            if (!parts.get(part).isEmpty()) {
+                heads.add(new int[]{part, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(total, max));
+        while (merged.size() < max && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> part = parts.get(head[0]);
+            merged.add(part.get(head[1]));
+            if (++head[1] < part.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static <T> List<T> sortedById(List<List<T>> parts, Function<T, Long> idOf) {
+        return parts.stream().flatMap(List::stream).sorted(Comparator.comparing(idOf)).collect(Collectors.toList());
+    }
+
+    /**
+     * Add up (key, count) rows from every shard, per key
+     */
+    static List<Object[]> sumCounts(List<List<Object[]>> parts) {
+        Map<Object, Long> sums = new LinkedHashMap<>();
+        parts.forEach(part -> part.forEach(row -> sums.merge(row[0], ((Number) row[1]).longValue(), Long::sum)));
+        return sums.entrySet().stream().map(entry -> new Object[]{entry.getKey(), entry.getValue()}).toList();
+    }
+
+    /**
+     * All clients in id order, one merged keyset page at a time
+     */
+    private Stream<Client> pagedById() {
+        Limit page = Limit.of(STREAM_PAGE_SIZE);
+        return Stream.iterate(findByIdGreaterThanOrderByIdAsc(0L, page),
+                        clients -> !clients.isEmpty(),
+                        clients -> clients.size() < STREAM_PAGE_SIZE ? List.of()
+                                : findByIdGreaterThanOrderByIdAsc(clients.get(clients.size() - 1).getId(), page))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Save one client on its shard, claiming its email and username first if it is new
+     */
+    private <S extends Client> S write(S client, Supplier<S> save) {
+        boolean inserting = client.getId() == null;
+        if (inserting) {
+            directory.claim(List.of(client));
+        }
+        List<Long> claimed = inserting ? List.of(client.getId()) : List.of();
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        try {
+            S saved = onShardOf(client.getId(), save);
+            if (inTransaction && inserting) {
+                TransactionSynchronizationManager.registerSynchronization(new Release(Map.of(), claimed));
+            }
+            return saved;
+        } catch (RuntimeException e) {
+            // The directory rows must not outlive a client that was not written
+            if (inTransaction && inserting) {
+                TransactionSynchronizationManager.registerSynchronization(new Release(Map.of(), claimed, true));
+            } else if (inserting) {
+                directory.resync(claimed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Save clients shard by shard, handing each shard's part to the given work in that shard's
+     * transaction. New ones are claimed in the directory together, so a taken email or username
+     * fails the whole call before any row is written.
+     */
+    private <S extends Client> List<S> writeAll(Iterable<S> entities, Consumer<List<S>> written) {
+        List<S> clients = StreamSupport.stream(entities.spliterator(), false).collect(Collectors.toList());
+        List<S> inserted = clients.stream().filter(client -> client.getId() == null).toList();
+        directory.claim(inserted);
+        List<Long> claimed = inserted.stream().map(Client::getId).toList();
+        Set<Long> claimedIds = new HashSet<>(claimed);
+
+        Map<Integer, List<S>> byShard = clients.stream()
+                .collect(Collectors.groupingBy(client -> shards.shardOf(client.getId()), TreeMap::new, Collectors.toList()));
+        Map<Integer, List<Long>> committed = new TreeMap<>();
+        try {
+            byShard.forEach((shard, group) -> {
+                inOwnTransaction(shard, false, () -> {
+                    target.saveAll(group);
+                    target.flush();
+                    written.accept(group);
+                    return null;
+                });
+                committed.put(shard, group.stream().map(Client::getId).filter(claimedIds::contains).toList());
+            });
+        } catch (RuntimeException e) {
+            new Release(committed, claimed).run();
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new Release(committed, claimed));
+        }
+        return clients;
+    }
+
+    /**
+     * Undoes inserts that the caller's transaction did not keep: removes the rows already
+     * committed on their shards, with their outbox rows (a subscriber may have been sent those
+     * already, as a reader may have seen the client), then frees the directory rows of every
+     * claimed client
+     */
+    private final class Release implements TransactionSynchronization {
+
+        private final Map<Integer, List<Long>> written;
+
+        private final List<Long> claimed;
+
+        private final boolean always;
+
+        private Release(Map<Integer, List<Long>> written, List<Long> claimed) {
+            this(written, claimed, false);
+        }
+
+        private Release(Map<Integer, List<Long>> written, List<Long> claimed, boolean always) {
+            this.written = written;
+            this.claimed = claimed;
+            this.always = always;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (always || status != STATUS_COMMITTED) {
+                run();
+            }
+        }
+
+        private void run() {
+            written.forEach((shard, ids) -> {
+                if (!ids.isEmpty()) {
+                    String in = " in (" + ClientDirectory.placeholders(ids.size()) + ")";
+                    shards.inTransaction(shard, jdbcTemplate -> {
+                        jdbcTemplate.update("delete from client_outbox where client_id" + in, ids.toArray());
+                        return jdbcTemplate.update("delete from CLIENT where id" + in, ids.toArray());
+                    });
+                    ids.forEach(id -> entityManagerFactory.getCache().evict(Client.class, id));
+                }
+            });
+            directory.resync(claimed);
+        }
+    }
+}
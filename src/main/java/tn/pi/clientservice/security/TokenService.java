@@ -0,0 +1,139 @@
+package tn.pi.clientservice.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Service;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.TokenResponseDTO;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.service.ClientService;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Issues and refreshes the HMAC-signed tokens that replace per-request Basic authentication.
+ * An access token carries everything a request needs (client id and role), so checking it
+ * costs one signature verification and no database or password work. Refresh tokens are
+ * only accepted by {@link #refresh}, which re-reads the client so a suspended account or a
+ * changed role takes effect at the next refresh.
+ */
+@Service
+public class TokenService {
+
+    /**
+     * Distinguishes access from refresh tokens, so neither can stand in for the other
+     */
+    public static final String TYPE_CLAIM = "typ";
+
+    public static final String ROLES_CLAIM = "roles";
+
+    public static final String ACCESS = "access";
+
+    public static final String REFRESH = "refresh";
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Autowired
+    private ClientService clientService;
+
+    private final JwtDecoder refreshDecoder;
+
+    private final String issuer;
+
+    @Value("${jwt.expiration:900000}")
+    private long accessTokenMillis;
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshTokenMillis;
+
+    public TokenService(SecretKey jwtSecretKey, @Value("${jwt.issuer:client-service}") String issuer) {
+        this.refreshDecoder = decoder(jwtSecretKey, issuer, REFRESH);
+        this.issuer = issuer;
+    }
+
+    /**
+     * Decoder accepting only tokens of the given type signed with the key, from the issuer and not expired
+     */
+    public static JwtDecoder decoder(SecretKey key, String issuer, String type) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS256).build();
+        decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(issuer),
+                new JwtClaimValidator<String>(TYPE_CLAIM, type::equals)));
+        return decoder;
+    }
+
+    /**
+     * Issue a token pair for a client whose credentials have been verified
+     */
+    public TokenResponseDTO issue(ClientDTO client) {
+        Instant now = Instant.now();
+        JwtClaimsSet access = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(String.valueOf(client.getId()))
+                .issuedAt(now)
+                .expiresAt(now.plusMillis(accessTokenMillis))
+                .claim(TYPE_CLAIM, ACCESS)
+                .claim(ROLES_CLAIM, List.of(client.getRole().name()))
+                .claim("username", client.getUsername())
+                .build();
+        JwtClaimsSet refresh = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(String.valueOf(client.getId()))
+                .issuedAt(now)
+                .expiresAt(now.plusMillis(refreshTokenMillis))
+                .claim(TYPE_CLAIM, REFRESH)
+                .build();
+        return TokenResponseDTO.builder()
+                .tokenType("Bearer")
+                .accessToken(encode(access))
+                .expiresIn(accessTokenMillis / 1000)
+                .refreshToken(encode(refresh))
+                .refreshExpiresIn(refreshTokenMillis / 1000)
+                .build();
+    }
+
+    /**
+     * Exchange a valid refresh token for a new pair, provided the client is still active
+     */
+    public TokenResponseDTO refresh(String refreshToken) {
+        Jwt jwt;
+        try {
+            jwt = refreshDecoder.decode(refreshToken);
+        } catch (JwtException e) {
+            throw new BadCredentialsException("Invalid refresh token", e);
+        }
+        Integer id;
+        try {
+            id = Integer.valueOf(jwt.getSubject());
+        } catch (NumberFormatException e) {
+            throw new BadCredentialsException("Invalid refresh token", e);
+        }
+        ClientDTO client = clientService.findClientById(id)
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        if (client.getStatus() != UserStatus.ACTIVE) {
+            throw new BadCredentialsException("Account is not active");
+        }
+        return issue(client);
+    }
+
+    private String encode(JwtClaimsSet claims) {
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS256).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+    }
+}
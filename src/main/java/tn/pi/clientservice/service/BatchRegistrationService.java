@@ -0,0 +1,271 @@
+package tn.pi.clientservice.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.dto.BatchItemResultDTO;
+import tn.pi.clientservice.dto.BatchRegistrationResultDTO;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.exception.HashingCapacityExceededException;
+import tn.pi.clientservice.index.UniquenessIndex;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+import tn.pi.clientservice.outbox.ClientOutbox;
+import tn.pi.clientservice.repository.ClientStore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Registers many clients at once: the whole batch is validated up front,
+ * uniqueness is checked with set-based queries and rows are inserted with
+ * JDBC batching, one transaction per chunk.
+ */
+@Service
+public class BatchRegistrationService {
+
+    /**
+     * Maximum number of values bound into one IN list
+     */
+    private static final int KEY_QUERY_CHUNK = 1000;
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private ClientDTOMapper clientDTOMapper;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UniquenessIndex uniquenessIndex;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClientOutbox clientOutbox;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${client.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${client.batch.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Register a batch of clients, reporting the outcome of each one
+     */
+    public BatchRegistrationResultDTO registerClients(List<ClientDTO> clientDTOs) {
+        if (clientDTOs == null || clientDTOs.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one client");
+        }
+        if (clientDTOs.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size exceeds the maximum of " + maxBatchSize);
+        }
+
+        long start = System.nanoTime();
+        BatchItemResultDTO[] results = new BatchItemResultDTO[clientDTOs.size()];
+
+        // Validate every item and reject duplicates inside the batch
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> batchEmails = new HashSet<>();
+        Set<String> batchUsernames = new HashSet<>();
+        for (int i = 0; i < clientDTOs.size(); i++) {
+            ClientDTO dto = clientDTOs.get(i);
+            if (dto == null) {
+                results[i] = failure(i, null, "Client is required");
+                continue;
+            }
+            Set<ConstraintViolation<ClientDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                results[i] = failure(i, dto, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            if (!batchEmails.add(key(dto.getEmail()))) {
+                results[i] = failure(i, dto, "Duplicate email in batch: " + dto.getEmail());
+                continue;
+            }
+            if (!batchUsernames.add(key(dto.getUsername()))) {
+                results[i] = failure(i, dto, "Duplicate username in batch: " + dto.getUsername());
+                continue;
+            }
+            candidates.add(i);
+        }
+
+        // Check uniqueness against the database with one query per chunk of keys
+        Set<String> takenEmails = findTaken(candidates.stream()
+                .map(i -> ClientDTOMapper.normalizeEmail(clientDTOs.get(i).getEmail()))
+                .collect(Collectors.toList()), clientRepository::findExistingEmails);
+        Set<String> takenUsernames = findTaken(candidates.stream()
+                .map(i -> ClientDTOMapper.normalizeUsername(clientDTOs.get(i).getUsername()))
+                .collect(Collectors.toList()), clientRepository::findExistingUsernames);
+
+        List<Integer> accepted = new ArrayList<>();
+        for (Integer i : candidates) {
+            ClientDTO dto = clientDTOs.get(i);
+            if (takenEmails.contains(key(dto.getEmail()))) {
+                results[i] = failure(i, dto, "Email already exists: " + dto.getEmail());
+            } else if (takenUsernames.contains(key(dto.getUsername()))) {
+                results[i] = failure(i, dto, "Username already exists: " + dto.getUsername());
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        // Hash and insert chunk by chunk
+        for (int from = 0; from < accepted.size(); from += chunkSize) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+            List<Client> clients = new ArrayList<>(chunk.size());
+            try {
+                List<String> hashes = passwordHashingService.encodeAll(chunk.stream()
+                        .map(i -> clientDTOs.get(i).getPassword())
+                        .collect(Collectors.toList()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    clients.add(clientDTOMapper.mapToNewClient(clientDTOs.get(chunk.get(i)), hashes.get(i)));
+                }
+            } catch (HashingCapacityExceededException e) {
+                // Leave the rest of the batch for a retry rather than queueing behind the pool
+                for (Integer i : accepted.subList(from, accepted.size())) {
+                    results[i] = failure(i, clientDTOs.get(i), e.getMessage());
+                }
+                break;
+            }
+            insertChunk(chunk, clients, results);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        int registered = (int) Arrays.stream(results).filter(BatchItemResultDTO::isSuccess).count();
+        double rowsPerSecond = registered / Math.max(elapsedNanos / 1_000_000_000.0, 1e-9);
+        Double singleRowRowsPerSecond = clientService.getSingleRowRegistrationsPerSecond();
+
+        return BatchRegistrationResultDTO.builder()
+                .total(results.length)
+                .registered(registered)
+                .failed(results.length - registered)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(rowsPerSecond)
+                .singleRowRowsPerSecond(singleRowRowsPerSecond)
+                .speedup(singleRowRowsPerSecond != null ? rowsPerSecond / singleRowRowsPerSecond : null)
+                .items(Arrays.asList(results))
+                .build();
+    }
+
+    private void insertChunk(List<Integer> indexes, List<Client> clients, BatchItemResultDTO[] results) {
+        try {
+            // The chunk's outbox rows go out as one more JDBC batch in the transaction writing the rows
+            Map<Long, ClientChangedEvent> events = new HashMap<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                clientRepository.saveAll(clients, written -> {
+                    List<ClientChangedEvent> registered = written.stream()
+                            .map(client -> ClientChangedEvent.registered(clientDTOMapper.mapToDTO(client)))
+                            .toList();
+                    clientOutbox.appendAll(registered);
+                    registered.forEach(event -> events.put(event.getClientId(), event));
+                });
+                entityManager.clear();
+            });
+            for (int i = 0; i < clients.size(); i++) {
+                succeeded(indexes.get(i), clients.get(i), events.get(clients.get(i).getId()), results);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent registration took one of the keys: retry row by row to isolate it
+            for (int i = 0; i < clients.size(); i++) {
+                Client client = clients.get(i);
+                client.setId(null);
+                client.setVersion(null);
+                try {
+                    ClientChangedEvent event = new TransactionTemplate(transactionManager).execute(status -> {
+                        ClientChangedEvent registered = ClientChangedEvent.registered(
+                                clientDTOMapper.mapToDTO(clientRepository.saveAndFlush(client)));
+                        clientOutbox.append(registered);
+                        return registered;
+                    });
+                    succeeded(indexes.get(i), client, event, results);
+                } catch (DataIntegrityViolationException rowError) {
+                    results[indexes.get(i)] = BatchItemResultDTO.builder()
+                            .index(indexes.get(i))
+                            .success(false)
+                            .email(client.getEmail())
+                            .username(client.getUsername())
+                            .message("Email or username already exists")
+                            .build();
+                }
+            }
+        }
+    }
+
+    private void succeeded(int index, Client client, ClientChangedEvent event, BatchItemResultDTO[] results) {
+        uniquenessIndex.add(client.getEmail(), client.getUsername());
+        eventPublisher.publishEvent(event);
+        results[index] = BatchItemResultDTO.builder()
+                .index(index)
+                .success(true)
+                .id(client.getId())
+                .email(client.getEmail())
+                .username(client.getUsername())
+                .build();
+    }
+
+    private static BatchItemResultDTO failure(int index, ClientDTO dto, String message) {
+        return BatchItemResultDTO.builder()
+                .index(index)
+                .success(false)
+                .email(dto != null ? dto.getEmail() : null)
+                .username(dto != null ? dto.getUsername() : null)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Normalized values already present in the database, queried in chunks of bound keys
+     */
+    static Set<String> findTaken(List<String> values, Function<Collection<String>, List<String>> query) {
+        Set<String> taken = new HashSet<>();
+        for (int from = 0; from < values.size(); from += KEY_QUERY_CHUNK) {
+            query.apply(values.subList(from, Math.min(from + KEY_QUERY_CHUNK, values.size())))
+                    .forEach(value -> taken.add(key(value)));
+        }
+        return taken;
+    }
+
+    /**
+     * Case-insensitive uniqueness key for an email or username
+     */
+    static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,503 @@
+package tn.pi.clientservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientImportDTO;
+import tn.pi.clientservice.dto.ClientImportErrorDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.ImportStatus;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.exception.ResourceNotFoundException;
+import tn.pi.clientservice.imports.ClientImportJobs;
+import tn.pi.clientservice.imports.CsvRecordReader;
+import tn.pi.clientservice.index.UniquenessIndex;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+import tn.pi.clientservice.outbox.ClientOutbox;
+import tn.pi.clientservice.repository.ClientStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Imports clients from CSV files in the background. Each chunk of rows is validated,
+ * checked for duplicates and hashed on the job thread while the previous chunk is being
+ * inserted on a writer thread. A chunk's inserts, rejected rows and the job checkpoint (the
+ * byte offset of the next row) commit in one transaction, so after a crash or restart the
+ * job resumes right after the last committed chunk.
+ */
+@Service
+public class ClientImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientImportService.class);
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
+    /**
+     * Header columns that must be present, compared without case or underscores
+     */
+    private static final List<String> REQUIRED_COLUMNS = List.of("firstname", "lastname", "email", "username");
+
+    @Autowired
+    private ClientImportJobs importJobs;
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private ClientDTOMapper clientDTOMapper;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UniquenessIndex uniquenessIndex;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClientOutbox clientOutbox;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Where uploaded files are kept until their import completes; must survive restarts for resuming
+     */
+    @Value("${client.import.directory:${java.io.tmpdir}/client-imports}")
+    private String directory;
+
+    @Value("${client.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${client.pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${client.pagination.max-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Runs one import at a time
+     */
+    private ExecutorService jobExecutor;
+
+    /**
+     * Inserts the chunks of the running import, one at a time and in order
+     */
+    private ExecutorService writer;
+
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(Path.of(directory));
+        jobExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("client-import-"));
+        writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("client-import-writer-"));
+    }
+
+    /**
+     * Stop between chunks; interrupted imports stay RUNNING and are resumed at the next startup
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopping = true;
+        jobExecutor.shutdownNow();
+        jobExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        writer.shutdown();
+    }
+
+    /**
+     * Pick up the imports a crash or shutdown left unfinished
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        importJobs.findUnfinished().forEach(this::schedule);
+    }
+
+    /**
+     * Store an uploaded CSV file and queue its import
+     */
+    public ClientImportDTO submit(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Import file is required");
+        }
+        Path target = Path.of(directory, UUID.randomUUID() + ".csv");
+        file.transferTo(target);
+        String filename = file.getOriginalFilename() != null ? file.getOriginalFilename() : target.getFileName().toString();
+        long id = importJobs.create(filename, target.toString(), Files.size(target));
+        schedule(id);
+        return getImport(id);
+    }
+
+    /**
+     * Queue a failed or interrupted import again; it continues from its last checkpoint
+     */
+    public ClientImportDTO resume(long id) {
+        ClientImportDTO job = getImport(id);
+        if (job.getStatus() == ImportStatus.COMPLETED) {
+            throw new IllegalStateException("Import " + id + " has already completed");
+        }
+        schedule(id);
+        return job;
+    }
+
+    public Optional<ClientImportDTO> findImport(long id) {
+        return importJobs.find(id);
+    }
+
+    private ClientImportDTO getImport(long id) {
+        return importJobs.find(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Import not found with id: " + id));
+    }
+
+    public List<ClientImportDTO> getImports() {
+        return importJobs.findAll();
+    }
+
+    /**
+     * Rejected rows of an import, one page at a time following the given error id
+     */
+    public ClientPageDTO<ClientImportErrorDTO> getErrors(long id, Long after, Integer size) {
+        if (size != null && size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        getImport(id);
+        int pageSize = size != null ? Math.min(size, maxPageSize) : defaultPageSize;
+        List<ClientImportErrorDTO> rows = importJobs.findErrors(id, after != null ? after : 0L, pageSize + 1);
+        return ClientService.toPage(rows, pageSize, ClientImportErrorDTO::getId);
+    }
+
+    private void schedule(long id) {
+        jobExecutor.execute(() -> run(id));
+    }
+
+    private void run(long id) {
+        if (stopping || !importJobs.start(id)) {
+            return;
+        }
+        ClientImportDTO job = getImport(id);
+        log.info("Import {} ({}) starting at byte {} of {}", id, job.getFilename(), job.getBytesRead(), job.getFileSize());
+        CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+        Path path = Path.of(importJobs.findPath(id));
+        try (CsvRecordReader reader = new CsvRecordReader(path)) {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IllegalArgumentException("Import file has no header row");
+            }
+            Map<String, Integer> columns = columns(header);
+            if (job.getBytesRead() > reader.offset()) {
+                reader.seek(job.getBytesRead());
+            }
+            long recordNumber = job.getRowsRead();
+            long[] lastCheckpoint = {System.nanoTime()};
+            while (!stopping) {
+                List<Row> rows = new ArrayList<>(chunkSize);
+                List<String> fields;
+                while (rows.size() < chunkSize && (fields = reader.next()) != null) {
+                    rows.add(new Row(++recordNumber, fields));
+                }
+                if (rows.isEmpty()) {
+                    break;
+                }
+                Chunk chunk = prepare(rows, columns, reader.offset(), recordNumber);
+                // At most one chunk is written while the next one is prepared
+                pendingWrite.join();
+                pendingWrite = CompletableFuture.runAsync(() -> write(id, chunk, lastCheckpoint), writer);
+            }
+            pendingWrite.join();
+            if (stopping) {
+                return;
+            }
+            importJobs.finish(id, ImportStatus.COMPLETED, null);
+        } catch (Exception e) {
+            if (stopping) {
+                log.info("Import {} interrupted by shutdown, it will resume at the next startup", id);
+                return;
+            }
+            // Let an in-flight chunk settle so the failure is reported after its checkpoint
+            pendingWrite.exceptionally(error -> null).join();
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("Import {} failed, resume it to continue from the last checkpoint", id, cause);
+            importJobs.finish(id, ImportStatus.FAILED, cause.getMessage());
+            return;
+        }
+        ClientImportDTO done = getImport(id);
+        log.info("Import {} completed: {} rows, {} imported, {} failed, {} rows/s", id, done.getRowsRead(),
+                done.getImported(), done.getFailed(), Math.round(done.getRowsPerSecond()));
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete imported file {}", path, e);
+        }
+    }
+
+    /**
+     * Validate a chunk, reject duplicates within it and against the database, and hash the passwords of the rest
+     */
+    private Chunk prepare(List<Row> rows, Map<String, Integer> columns, long nextOffset, long rowsRead) {
+        List<ClientImportErrorDTO> errors = new ArrayList<>();
+        List<Row> candidates = new ArrayList<>();
+        Set<String> chunkEmails = new HashSet<>();
+        Set<String> chunkUsernames = new HashSet<>();
+        for (Row row : rows) {
+            ClientDTO dto = new ClientDTO(value(row, columns, "firstname"), value(row, columns, "lastname"),
+                    value(row, columns, "email"), value(row, columns, "username"), value(row, columns, "password"));
+            dto.setPhone(value(row, columns, "phone"));
+            dto.setAddress(value(row, columns, "address"));
+            row.dto = dto;
+            row.passwordHash = value(row, columns, "passwordhash");
+
+            String message = validate(row, value(row, columns, "role"), value(row, columns, "status"));
+            if (message == null && !chunkEmails.add(BatchRegistrationService.key(dto.getEmail()))) {
+                message = "Duplicate email in file: " + dto.getEmail();
+            }
+            if (message == null && !chunkUsernames.add(BatchRegistrationService.key(dto.getUsername()))) {
+                message = "Duplicate username in file: " + dto.getUsername();
+            }
+            if (message != null) {
+                errors.add(error(row.recordNumber, dto.getEmail(), dto.getUsername(), message));
+            } else {
+                candidates.add(row);
+            }
+        }
+
+        Set<String> takenEmails = BatchRegistrationService.findTaken(candidates.stream()
+                .map(row -> ClientDTOMapper.normalizeEmail(row.dto.getEmail()))
+                .collect(Collectors.toList()), clientRepository::findExistingEmails);
+        Set<String> takenUsernames = BatchRegistrationService.findTaken(candidates.stream()
+                .map(row -> ClientDTOMapper.normalizeUsername(row.dto.getUsername()))
+                .collect(Collectors.toList()), clientRepository::findExistingUsernames);
+        List<Row> accepted = new ArrayList<>(candidates.size());
+        for (Row row : candidates) {
+            if (takenEmails.contains(BatchRegistrationService.key(row.dto.getEmail()))) {
+                errors.add(error(row.recordNumber, row.dto.getEmail(), row.dto.getUsername(), "Email already exists: " + row.dto.getEmail()));
+            } else if (takenUsernames.contains(BatchRegistrationService.key(row.dto.getUsername()))) {
+                errors.add(error(row.recordNumber, row.dto.getEmail(), row.dto.getUsername(), "Username already exists: " + row.dto.getUsername()));
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        // Pre-hashed rows skip BCrypt; the others are hashed in parallel on the hashing pool
+        List<Row> toHash = accepted.stream().filter(row -> row.passwordHash == null).collect(Collectors.toList());
+        List<String> hashes = passwordHashingService.encodeAll(toHash.stream()
+                .map(row -> row.dto.getPassword())
+                .collect(Collectors.toList()));
+        for (int i = 0; i < toHash.size(); i++) {
+            toHash.get(i).passwordHash = hashes.get(i);
+        }
+
+        List<Client> clients = new ArrayList<>(accepted.size());
+        List<Long> recordNumbers = new ArrayList<>(accepted.size());
+        for (Row row : accepted) {
+            Client client = clientDTOMapper.mapToNewClient(row.dto, row.passwordHash);
+            if (row.status != null) {
+                client.setStatus(row.status);
+            }
+            clients.add(client);
+            recordNumbers.add(row.recordNumber);
+        }
+        // Rejected in two passes; reported in file order
+        errors.sort(Comparator.comparingLong(ClientImportErrorDTO::getRecordNumber));
+        return new Chunk(clients, recordNumbers, errors, nextOffset, rowsRead);
+    }
+
+    /**
+     * Check a row against the ClientDTO constraints, with a BCrypt hash standing in for the password
+     *
+     * @return the reason the row is rejected, or null
+     */
+    private String validate(Row row, String role, String status) {
+        ClientDTO dto = row.dto;
+        try {
+            dto.setRole(role != null ? UserRole.valueOf(role.toUpperCase(Locale.ROOT)) : null);
+        } catch (IllegalArgumentException e) {
+            return "Unknown role: " + role;
+        }
+        try {
+            row.status = status != null ? UserStatus.valueOf(status.toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException e) {
+            return "Unknown status: " + status;
+        }
+        if (row.passwordHash != null && !BCRYPT_HASH.matcher(row.passwordHash).matches()) {
+            return "Password hash must be a BCrypt hash";
+        }
+        Set<ConstraintViolation<ClientDTO>> violations = validator.validate(dto);
+        String message = violations.stream()
+                .filter(violation -> row.passwordHash == null || !"password".equals(violation.getPropertyPath().toString()))
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+        return message.isEmpty() ? null : message;
+    }
+
+    /**
+     * Insert a prepared chunk and move the checkpoint past it in one transaction
+     */
+    private void write(long id, Chunk chunk, long[] lastCheckpoint) {
+        long now = System.nanoTime();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - lastCheckpoint[0]);
+        lastCheckpoint[0] = now;
+
+        List<Client> saved;
+        List<ClientChangedEvent> events;
+        try {
+            Map<Long, ClientChangedEvent> registered = new HashMap<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // Each part's outbox rows are written in the transaction writing its clients
+                clientRepository.saveAll(chunk.clients(), written -> {
+                    List<ClientChangedEvent> recorded = written.stream()
+                            .map(client -> ClientChangedEvent.registered(clientDTOMapper.mapToDTO(client)))
+                            .toList();
+                    clientOutbox.appendAll(recorded);
+                    recorded.forEach(event -> registered.put(event.getClientId(), event));
+                });
+                entityManager.clear();
+                importJobs.appendErrors(id, chunk.errors());
+                importJobs.checkpoint(id, chunk.nextOffset(), chunk.rowsRead(), chunk.clients().size(),
+                        chunk.errors().size(), elapsedMillis);
+            });
+            saved = chunk.clients();
+            events = saved.stream().map(client -> registered.get(client.getId())).toList();
+        } catch (DataIntegrityViolationException e) {
+            // A key taken since the duplicate check (or repeated across chunks): retry row by row to isolate it.
+            // Rows committed here before a crash are reported as existing when the chunk is replayed.
+            saved = new ArrayList<>();
+            events = new ArrayList<>();
+            List<ClientImportErrorDTO> errors = new ArrayList<>(chunk.errors());
+            for (int i = 0; i < chunk.clients().size(); i++) {
+                Client client = chunk.clients().get(i);
+                client.setId(null);
+                client.setVersion(null);
+                try {
+                    events.add(new TransactionTemplate(transactionManager).execute(status -> {
+                        ClientChangedEvent registered = ClientChangedEvent.registered(
+                                clientDTOMapper.mapToDTO(clientRepository.saveAndFlush(client)));
+                        clientOutbox.append(registered);
+                        return registered;
+                    }));
+                    saved.add(client);
+                } catch (DataIntegrityViolationException rowError) {
+                    errors.add(error(chunk.recordNumbers().get(i), client.getEmail(), client.getUsername(),
+                            "Email or username already exists"));
+                }
+            }
+            errors.sort(Comparator.comparingLong(ClientImportErrorDTO::getRecordNumber));
+            int imported = events.size();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                importJobs.appendErrors(id, errors);
+                importJobs.checkpoint(id, chunk.nextOffset(), chunk.rowsRead(), imported, errors.size(), elapsedMillis);
+            });
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            uniquenessIndex.add(saved.get(i).getEmail(), saved.get(i).getUsername());
+            eventPublisher.publishEvent(events.get(i));
+        }
+    }
+
+    /**
+     * Column positions by normalized header name
+     */
+    private static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(name -> !columns.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Import file is missing columns: " + String.join(", ", missing));
+        }
+        if (!columns.containsKey("password") && !columns.containsKey("passwordhash")) {
+            throw new IllegalArgumentException("Import file needs a password or password_hash column");
+        }
+        return columns;
+    }
+
+    /**
+     * Trimmed field value, null when the column is absent or the field blank
+     */
+    private static String value(Row row, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.fields.size()) {
+            return null;
+        }
+        String value = row.fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static ClientImportErrorDTO error(long recordNumber, String email, String username, String message) {
+        return ClientImportErrorDTO.builder()
+                .recordNumber(recordNumber)
+                .email(email)
+                .username(username)
+                .message(message)
+                .build();
+    }
+
+    private static final class Row {
+
+        private final long recordNumber;
+
+        private final List<String> fields;
+
+        private ClientDTO dto;
+
+        private String passwordHash;
+
+        private UserStatus status;
+
+        private Row(long recordNumber, List<String> fields) {
+            this.recordNumber = recordNumber;
+            this.fields = fields;
+        }
+    }
+
+    private record Chunk(List<Client> clients, List<Long> recordNumbers, List<ClientImportErrorDTO> errors,
+                         long nextOffset, long rowsRead) {
+    }
+}
@@ -0,0 +1,202 @@
+package tn.pi.clientservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.pi.clientservice.datasource.ReadRouting;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.exception.ServiceUnavailableException;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+import tn.pi.clientservice.repository.ClientStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces concurrent lookups by id into batched loads. The first id to arrive opens a window;
+ * ids arriving within it, up to the maximum batch size, are loaded together with one query.
+ * A lookup for an id that is already waiting or being loaded shares that load's result.
+ * <p>
+ * Loads run one at a time on the batching thread, so while one runs the next batch fills up.
+ * A lookup waits at most timeout-ms for its batch, then fails as unavailable.
+ * Lookups that must see uncommitted or just-written state (inside a transaction, or from a
+ * request pinned to the primary) bypass the batcher and load directly.
+ */
+@Component
+public class ClientLookupBatcher {
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private ClientDTOMapper clientDTOMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${client.lookup.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${client.lookup.coalescing.window-micros:2000}")
+    private long windowMicros;
+
+    @Value("${client.lookup.coalescing.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${client.lookup.coalescing.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Ids waiting for the open window to close; guarded by lock
+     */
+    private Map<Long, CompletableFuture<Optional<ClientDTO>>> waiting = new HashMap<>();
+
+    /**
+     * Ids whose batch is being loaded; guarded by lock
+     */
+    private final Map<Long, CompletableFuture<Optional<ClientDTO>>> loading = new HashMap<>();
+
+    /**
+     * The scheduled close of the open window, null when none is open; guarded by lock
+     */
+    private ScheduledFuture<?> windowClose;
+
+    private ScheduledExecutorService executor;
+
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("client-lookup-"));
+        batchSizes = DistributionSummary.builder("client.lookup.batch.size")
+                .description("Distinct ids loaded per coalesced lookup query")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Find a client by id, batched with the concurrent lookups of other ids
+     */
+    public Optional<ClientDTO> load(Long id) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive() || ReadRouting.pinnedToPrimary()) {
+            return clientRepository.findById(id.intValue()).map(clientDTOMapper::mapToDTO);
+        }
+        CompletableFuture<Optional<ClientDTO>> result;
+        lock.lock();
+        try {
+            result = loading.get(id);
+            if (result == null) {
+                result = waiting.computeIfAbsent(id, key -> new CompletableFuture<>());
+                if (waiting.size() >= maxBatchSize) {
+                    Map<Long, CompletableFuture<Optional<ClientDTO>>> batch = closeWindow();
+                    executor.execute(() -> loadBatch(batch));
+                } else if (windowClose == null) {
+                    Map<Long, CompletableFuture<Optional<ClientDTO>>> window = waiting;
+                    windowClose = executor.schedule(() -> flush(window), windowMicros, TimeUnit.MICROSECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Surface the load's own exception, e.g. no connection available
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Client lookup timed out, retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Client lookup interrupted");
+        }
+    }
+
+    /**
+     * Load the given window, unless it was already closed by reaching the maximum size; the window
+     * open now is a later one and keeps its full length
+     */
+    private void flush(Map<Long, CompletableFuture<Optional<ClientDTO>>> window) {
+        Map<Long, CompletableFuture<Optional<ClientDTO>>> batch;
+        lock.lock();
+        try {
+            if (waiting != window) {
+                return;
+            }
+            batch = closeWindow();
+        } finally {
+            lock.unlock();
+        }
+        loadBatch(batch);
+    }
+
+    /**
+     * Take the open window's lookups as a batch and cancel its scheduled close; the caller holds lock
+     */
+    private Map<Long, CompletableFuture<Optional<ClientDTO>>> closeWindow() {
+        Map<Long, CompletableFuture<Optional<ClientDTO>>> batch = waiting;
+        waiting = new HashMap<>();
+        if (windowClose != null) {
+            windowClose.cancel(false);
+            windowClose = null;
+        }
+        loading.putAll(batch);
+        return batch;
+    }
+
+    private void loadBatch(Map<Long, CompletableFuture<Optional<ClientDTO>>> batch) {
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        try {
+            for (int from = 0; from < ids.size(); from += maxBatchSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + maxBatchSize, ids.size()));
+                batchSizes.record(chunk.size());
+                Map<Long, Client> found = clientRepository.loadAllById(chunk).stream()
+                        .collect(Collectors.toMap(Client::getId, Function.identity()));
+                for (Long id : chunk) {
+                    batch.get(id).complete(Optional.ofNullable(found.get(id)).map(clientDTOMapper::mapToDTO));
+                }
+            }
+        } catch (Throwable e) {
+            // Errors too: a lookup left pending would wait out its whole timeout
+            batch.values().forEach(result -> result.completeExceptionally(e));
+        } finally {
+            lock.lock();
+            try {
+                batch.forEach(loading::remove);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -1,107 +1,240 @@
 package tn.pi.clientservice.service;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.cache.ClientCache;
 import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientLookupDTO;
+import tn.pi.clientservice.dto.ClientLookupResultDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.dto.ClientSearchResultDTO;
+import tn.pi.clientservice.dto.ClientStatsDTO;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
 import tn.pi.clientservice.entities.Client;
 import tn.pi.clientservice.enums.UserRole;
 import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.exception.PreconditionFailedException;
 import tn.pi.clientservice.exception.ResourceAlreadyExistsException;
 import tn.pi.clientservice.exception.ResourceNotFoundException;
+import tn.pi.clientservice.index.ClientSearchIndex;
+import tn.pi.clientservice.index.UniquenessIndex;
 import tn.pi.clientservice.mapper.ClientDTOMapper;
-import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.outbox.ClientOutbox;
+import tn.pi.clientservice.repository.ClientStore;
+import tn.pi.clientservice.stats.ClientStatistics;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class ClientService {
     @Autowired
-    private ClientRepository clientRepository;
+    private ClientStore clientRepository;
 
     @Autowired
     private ClientDTOMapper clientDTOMapper;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private ClientCache clientCache;
+
+    @Autowired
+    private ClientLookupBatcher clientLookupBatcher;
+
+    @Autowired
+    private DeletedClientPurger deletedClientPurger;
+
+    @Autowired
+    private UniquenessIndex uniquenessIndex;
+
+    @Autowired
+    private ClientSearchIndex clientSearchIndex;
+
+    @Autowired
+    private ClientStatistics clientStatistics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ClientOutbox clientOutbox;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${client.pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${client.pagination.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${client.stats.default-days:30}")
+    private int defaultStatsDays;
+
+    @Value("${client.lookup.max-keys:1000}")
+    private int maxLookupKeys;
+
+    private final LongAdder singleRowRegistrations = new LongAdder();
+
+    private final LongAdder singleRowRegistrationNanos = new LongAdder();
 
     /**
      * Register a new client
      */
     public ClientDTO registerClient(ClientDTO clientDTO) {
-        // Validate email uniqueness
-        if (clientRepository.existsByEmail(clientDTO.getEmail())) {
+        long start = System.nanoTime();
+
+        // Validate email uniqueness, on the values as they will be stored
+        if (uniquenessIndex.emailExists(ClientDTOMapper.normalizeEmail(clientDTO.getEmail()), clientRepository::existsByEmail)) {
             throw new ResourceAlreadyExistsException("Email already exists: " + clientDTO.getEmail());
         }
 
         // Validate username uniqueness
-        if (clientRepository.existsByUsername(clientDTO.getUsername())) {
+        if (uniquenessIndex.usernameExists(ClientDTOMapper.normalizeUsername(clientDTO.getUsername()),
+                clientRepository::existsByUsername)) {
             throw new ResourceAlreadyExistsException("Username already exists: " + clientDTO.getUsername());
         }
 
-        // Create new client entity
-        Client client = new Client();
-        client.setFirstName(clientDTO.getFirstName().trim());
-        client.setLastName(clientDTO.getLastName().trim());
-        client.setEmail(clientDTO.getEmail().trim().toLowerCase());
-        client.setPhone(clientDTO.getPhone() != null ? clientDTO.getPhone().trim() : null);
-        client.setUsername(clientDTO.getUsername().trim());
-        client.setAddress(clientDTO.getAddress() != null ? clientDTO.getAddress().trim() : null);
-
-        // Hash password using BCrypt
-        client.setPassword(passwordEncoder.encode(clientDTO.getPassword()));
+        // Hash the password using BCrypt, outside the transaction
+        String passwordHash = passwordHashingService.encode(clientDTO.getPassword());
 
-        // Set default role if not provided
-        if (clientDTO.getRole() != null) {
-            client.setRole(clientDTO.getRole());
-        } else {
-            client.setRole(UserRole.CLIENT);
+        Client client = clientDTOMapper.mapToNewClient(clientDTO, passwordHash);
+        ClientDTO registered;
+        try {
+            registered = insertClient(client);
+        } catch (DataIntegrityViolationException e) {
+            // A deleted client keeps its email and username until purged: release them and retry once
+            // with a fresh entity (the failed one already has an id)
+            if (deletedClientPurger.purgeHolding(client.getEmail(), client.getUsername()) == 0) {
+                throw new ResourceAlreadyExistsException(duplicateKeyMessage(e, client));
+            }
+            registered = insertClient(clientDTOMapper.mapToNewClient(clientDTO, passwordHash));
         }
+        uniquenessIndex.add(registered.getEmail(), registered.getUsername());
 
-        // Set default status to ACTIVE
-        client.setStatus(UserStatus.ACTIVE);
+        singleRowRegistrations.increment();
+        singleRowRegistrationNanos.add(System.nanoTime() - start);
+        return registered;
+    }
 
-        // Save client to database
-        Client savedClient = clientRepository.save(client);
+    /**
+     * Save a new client and its outbox row together
+     */
+    private ClientDTO insertClient(Client client) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            ClientDTO saved = clientDTOMapper.mapToDTO(clientRepository.save(client));
+            recordChange(ClientChangedEvent.registered(saved));
+            return saved;
+        });
+    }
 
-        return clientDTOMapper.mapToDTO(savedClient);
+    /**
+     * Rows per second achieved by single-client registration so far, or null before the first one
+     */
+    public Double getSingleRowRegistrationsPerSecond() {
+        long count = singleRowRegistrations.sum();
+        long nanos = singleRowRegistrationNanos.sum();
+        return count == 0 || nanos == 0 ? null : count / (nanos / 1_000_000_000.0);
     }
 
     /**
-     * Get client by ID
+     * Find client by ID; a miss is an empty result rather than an exception, since callers probing
+     * unknown ids are common and answering them should not cost a stack trace
      */
-    public ClientDTO getClientById(Integer id) {
-        Client client = clientRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
-        return clientDTOMapper.mapToDTO(client);
+    public Optional<ClientDTO> findClientById(Integer id) {
+        return clientCache.getById(id.longValue(), clientLookupBatcher::load);
     }
 
     /**
-     * Get client by email
+     * Find the clients matching any of the given ids, emails or usernames, with one query per kind of key
      */
-    public ClientDTO getClientByEmail(String email) {
-        Client client = clientRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Client not found with email: " + email));
-        return clientDTOMapper.mapToDTO(client);
+    public ClientLookupResultDTO lookupClients(ClientLookupDTO lookup) {
+        List<Long> ids = distinct(lookup.getIds());
+        List<String> emails = distinct(lookup.getEmails());
+        List<String> usernames = distinct(lookup.getUsernames());
+        if (ids.size() + emails.size() + usernames.size() > maxLookupKeys) {
+            throw new IllegalArgumentException("Lookup exceeds the maximum of " + maxLookupKeys + " keys");
+        }
+
+        Map<Long, ClientDTO> found = new LinkedHashMap<>();
+        Stream.of(clientRepository.loadAllById(ids), clientRepository.findByEmailIn(emails),
+                        clientRepository.loadAllByUsername(usernames))
+                .flatMap(List::stream)
+                .forEach(client -> found.computeIfAbsent(client.getId(), key -> clientDTOMapper.mapToDTO(client)));
+
+        Set<String> foundEmails = found.values().stream().map(ClientDTO::getEmail).collect(Collectors.toSet());
+        Set<String> foundUsernames = found.values().stream().map(ClientDTO::getUsername).collect(Collectors.toSet());
+        return ClientLookupResultDTO.builder()
+                .clients(List.copyOf(found.values()))
+                .missingIds(ids.stream().filter(id -> !found.containsKey(id)).toList())
+                .missingEmails(emails.stream().filter(email -> !foundEmails.contains(email)).toList())
+                .missingUsernames(usernames.stream().filter(username -> !foundUsernames.contains(username)).toList())
+                .build();
     }
 
     /**
-     * Get client by username
+     * Verify a client's credentials; the one BCrypt check a session costs, since later requests carry a token
      */
-    public ClientDTO getClientByUsername(String username) {
+    public ClientDTO authenticate(String username, String password) {
         Client client = clientRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Client not found with username: " + username));
+                .orElseThrow(() -> new BadCredentialsException("Invalid credentials"));
+        if (!passwordHashingService.matches(password, client.getPassword())) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        if (client.getStatus() != UserStatus.ACTIVE) {
+            throw new BadCredentialsException("Account is not active");
+        }
         return clientDTOMapper.mapToDTO(client);
     }
 
+    /**
+     * Find client by email
+     */
+    public Optional<ClientDTO> findClientByEmail(String email) {
+        return clientCache.getByEmail(email, () -> clientRepository.findByEmail(email).map(clientDTOMapper::mapToDTO));
+    }
+
+    /**
+     * Find client by username
+     */
+    public Optional<ClientDTO> findClientByUsername(String username) {
+        return clientCache.getByUsername(username, () -> clientRepository.findByUsername(username).map(clientDTOMapper::mapToDTO));
+    }
+
     /**
      * Get all clients
      */
+    @Transactional(readOnly = true)
     public List<ClientDTO> getAllClients() {
         return clientRepository.findAll()
                 .stream()
@@ -110,89 +243,259 @@ public class ClientService {
     }
 
     /**
-     * Update client
+     * Get one page of clients ordered by id, starting after the given cursor
      */
-    public ClientDTO updateClient(Integer id, ClientDTO clientDTO) {
-        Client client = clientRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
+    @Transactional(readOnly = true)
+    public ClientPageDTO<ClientDTO> getClientsPage(Long after, Integer size) {
+        int pageSize = resolvePageSize(size);
+        // Fetch one extra row to know whether another page follows
+        List<ClientDTO> rows = clientRepository.findByIdGreaterThanOrderByIdAsc(cursorOf(after), Limit.of(pageSize + 1))
+                .stream()
+                .map(clientDTOMapper::mapToDTO)
+                .collect(Collectors.toList());
+        return toPage(rows, pageSize, ClientDTO::getId);
+    }
 
-        // Check if email is being changed and if new email already exists
-        if (clientDTO.getEmail() != null && !clientDTO.getEmail().equals(client.getEmail())) {
-            if (clientRepository.existsByEmail(clientDTO.getEmail())) {
-                throw new ResourceAlreadyExistsException("Email already exists: " + clientDTO.getEmail());
-            }
+    /**
+     * Get all clients by role
+     */
+    @Transactional(readOnly = true)
+    public List<ClientSummaryDTO> getClientsByRole(UserRole role) {
+        return clientRepository.findSummariesByRole(role);
+    }
+
+    /**
+     * Get one page of clients with a role, ordered by id, starting after the given cursor
+     */
+    @Transactional(readOnly = true)
+    public ClientPageDTO<ClientSummaryDTO> getClientsByRolePage(UserRole role, Long after, Integer size) {
+        int pageSize = resolvePageSize(size);
+        List<ClientSummaryDTO> rows = clientRepository.findSummariesByRoleAfter(role, cursorOf(after), Limit.of(pageSize + 1));
+        return toPage(rows, pageSize, ClientSummaryDTO::getId);
+    }
+
+    /**
+     * Get all clients by status
+     */
+    @Transactional(readOnly = true)
+    public List<ClientSummaryDTO> getClientsByStatus(UserStatus status) {
+        return clientRepository.findSummariesByStatus(status);
+    }
+
+    /**
+     * Get one page of clients with a status, ordered by id, starting after the given cursor
+     */
+    @Transactional(readOnly = true)
+    public ClientPageDTO<ClientSummaryDTO> getClientsByStatusPage(UserStatus status, Long after, Integer size) {
+        int pageSize = resolvePageSize(size);
+        List<ClientSummaryDTO> rows = clientRepository.findSummariesByStatusAfter(status, cursorOf(after), Limit.of(pageSize + 1));
+        return toPage(rows, pageSize, ClientSummaryDTO::getId);
+    }
+
+    /**
+     * Search clients by partial name, email or username, best matches first
+     */
+    public ClientSearchResultDTO searchClients(String query, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be blank");
+        }
+        if (page != null && page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        return clientSearchIndex.search(query, page != null ? page : 0, resolvePageSize(size));
+    }
+
+    /**
+     * Client counts by role, status and registration day over the last given days
+     */
+    public ClientStatsDTO getClientStats(Integer days) {
+        if (days != null && days < 1) {
+            throw new IllegalArgumentException("Days must be at least 1");
         }
+        return clientStatistics.stats(days != null ? days : defaultStatsDays);
+    }
 
-        // Check if username is being changed and if new username already exists
-        if (clientDTO.getUsername() != null && !clientDTO.getUsername().equals(client.getUsername())) {
-            if (clientRepository.existsByUsername(clientDTO.getUsername())) {
-                throw new ResourceAlreadyExistsException("Username already exists: " + clientDTO.getUsername());
-            }
+    private int resolvePageSize(Integer size) {
+        if (size != null && size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        return size != null ? Math.min(size, maxPageSize) : defaultPageSize;
+    }
+
+    private static long cursorOf(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    /**
+     * Lookup keys without nulls or repeats, in request order
+     */
+    private static <T> List<T> distinct(List<T> keys) {
+        return keys == null ? List.of() : keys.stream().filter(Objects::nonNull).distinct().toList();
+    }
+
+    /**
+     * Trim a result fetched with one extra row into a page; the extra row only signals that more follow
+     */
+    static <T> ClientPageDTO<T> toPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> content = hasNext ? rows.subList(0, pageSize) : rows;
+        return ClientPageDTO.<T>builder()
+                .content(content)
+                .size(content.size())
+                .nextCursor(hasNext ? idOf.apply(content.get(content.size() - 1)) : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    /**
+     * Stream all clients ordered by id, handing each one to the consumer as it is read.
+     * Rows are detached once consumed so the persistence context stays empty.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllClients(Consumer<ClientDTO> consumer) {
+        try (Stream<Client> clients = clientRepository.streamAllOrderedById()) {
+            clients.forEach(client -> {
+                consumer.accept(clientDTOMapper.mapToDTO(client));
+                entityManager.detach(client);
+            });
+        }
+    }
+
+    /**
+     * Update client, if it is still at the expected version (any version when null).
+     * A concurrent update committed after the check still fails on the version column.
+     * Email and username are kept; they change through {@link #patchClient}.
+     */
+    @Transactional
+    public ClientDTO updateClient(Integer id, ClientDTO clientDTO, Long expectedVersion) {
+        Client client = clientRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(client.getVersion())) {
+            throw new PreconditionFailedException("Client " + id + " has been modified since version " + expectedVersion);
         }
 
         // Update client from DTO
+        ClientDTO before = clientDTOMapper.mapToDTO(client);
         clientDTOMapper.updateClientFromDTO(clientDTO, client);
 
-        Client updatedClient = clientRepository.save(client);
-        return clientDTOMapper.mapToDTO(updatedClient);
+        // Flush so the returned DTO carries the incremented version
+        Client updatedClient = clientRepository.saveAndFlush(client);
+        ClientDTO updated = clientDTOMapper.mapToDTO(updatedClient);
+        recordChange(ClientChangedEvent.updated(before, updated));
+        return updated;
     }
 
     /**
-     * Delete client
+     * Apply a partial update, if the client is still at the expected version (any version when null).
+     * One SELECT and one UPDATE of the changed columns; a taken email or username is reported by
+     * the unique constraints rather than checked beforehand, and a patch changing nothing writes nothing.
      */
-    public void deleteClient(Integer id) {
-        if (!clientRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Client not found with id: " + id);
+    @Transactional
+    public ClientDTO patchClient(Integer id, ClientPatchDTO patch, Long expectedVersion) {
+        Client client = clientRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(client.getVersion())) {
+            throw new PreconditionFailedException("Client " + id + " has been modified since version " + expectedVersion);
         }
-        clientRepository.deleteById(id);
+
+        ClientDTO before = clientDTOMapper.mapToDTO(client);
+        clientDTOMapper.applyPatch(patch, client);
+        try {
+            // Writes only the dirty columns (the entity has dynamic updates) and bumps the version
+            clientRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new ResourceAlreadyExistsException(duplicateKeyMessage(e, client), e);
+        }
+        if (client.getVersion().equals(before.getVersion())) {
+            return before;
+        }
+
+        uniquenessIndex.add(client.getEmail(), client.getUsername());
+        ClientDTO updated = clientDTOMapper.mapToDTO(client);
+        recordChange(ClientChangedEvent.updated(before, updated));
+        return updated;
     }
 
     /**
-     * Change password
+     * Name the key a unique constraint violation was about, from the constraint in the driver's message
      */
-    public void changePassword(Integer id, String oldPassword, String newPassword) {
+    private static String duplicateKeyMessage(DataIntegrityViolationException e, Client client) {
+        String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        // With sharding, the shard directory's constraints are the ones that catch it
+        if (cause.contains("uk_client_email") || cause.contains("uk_client_directory_email")) {
+            return "Email already exists: " + client.getEmail();
+        }
+        if (cause.contains("uk_client_username") || cause.contains("uk_client_directory_username")) {
+            return "Username already exists: " + client.getUsername();
+        }
+        return "Email or username already exists";
+    }
+
+    /**
+     * Delete client: a soft delete, so after the lookup (usually a second-level cache hit) it is one
+     * UPDATE conditional on the version just read, and readers of other rows are not held up by a
+     * hard DELETE. The row is removed later by {@link DeletedClientPurger}.
+     */
+    @Transactional
+    public void deleteClient(Integer id) {
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
+        clientRepository.delete(client);
+        uniquenessIndex.markRemoved();
+        recordChange(ClientChangedEvent.deleted(clientDTOMapper.mapToDTO(client)));
+    }
 
-        if (!passwordEncoder.matches(oldPassword, client.getPassword())) {
+    /**
+     * Change password
+     */
+    public void changePassword(Integer id, String oldPassword, String newPassword) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Read in a read-write transaction, so from the primary rather than a replica that may lag behind it
+        String currentHash = transaction.execute(status -> loadClient(id).getPassword());
+
+        // BCrypt runs outside both transactions
+        if (!passwordHashingService.matches(oldPassword, currentHash)) {
             throw new IllegalArgumentException("Old password is incorrect");
         }
+        String newHash = passwordHashingService.encode(newPassword);
 
-        client.setPassword(passwordEncoder.encode(newPassword));
-        clientRepository.save(client);
+        transaction.executeWithoutResult(status -> {
+            Client client = loadClient(id);
+            if (!client.getPassword().equals(currentHash)) {
+                // Changed since the old password was checked against it
+                throw new ObjectOptimisticLockingFailureException(Client.class, id);
+            }
+            client.setPassword(newHash);
+            Client savedClient = clientRepository.save(client);
+            recordChange(ClientChangedEvent.passwordChanged(clientDTOMapper.mapToDTO(savedClient)));
+        });
     }
 
-    /**
-     * Get all clients by role
-     */
-    public List<ClientDTO> getClientsByRole(UserRole role) {
-        return clientRepository.findByRole(role.name())
-                .stream()
-                .map(clientDTOMapper::mapToDTO)
-                .collect(Collectors.toList());
+    private Client loadClient(Integer id) {
+        return clientRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Client not found with id: " + id));
     }
 
     /**
-     * Get all clients by status
+     * Write the change to the outbox in the current transaction and notify in-process listeners,
+     * which run once it commits
      */
-    public List<ClientDTO> getClientsByStatus(UserStatus status) {
-        return clientRepository.findByStatus(status.name())
-                .stream()
-                .map(clientDTOMapper::mapToDTO)
-                .collect(Collectors.toList());
+    private void recordChange(ClientChangedEvent event) {
+        clientOutbox.append(event);
+        eventPublisher.publishEvent(event);
     }
 
     /**
-     * Check if email exists
+     * Check if email exists, compared as stored
      */
     public boolean emailExists(String email) {
-        return clientRepository.existsByEmail(email);
+        return uniquenessIndex.emailExists(ClientDTOMapper.normalizeEmail(email), clientRepository::existsByEmail);
     }
 
     /**
-     * Check if username exists
+     * Check if username exists, compared as stored
      */
     public boolean usernameExists(String username) {
-        return clientRepository.existsByUsername(username);
+        return uniquenessIndex.usernameExists(ClientDTOMapper.normalizeUsername(username), clientRepository::existsByUsername);
     }
 }
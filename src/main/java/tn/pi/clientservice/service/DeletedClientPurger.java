@@ -0,0 +1,192 @@
+package tn.pi.clientservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.pi.clientservice.datasource.ShardRouting;
+import tn.pi.clientservice.datasource.ShardedDataSource;
+import tn.pi.clientservice.repository.ClientDirectory;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hard-deletes soft-deleted clients once they are past the retention period, oldest first, in
+ * bounded batches with a pause between them so the purge never holds many row locks at once.
+ * It runs on a schedule meant for quiet hours. Times are compared in database time, which is
+ * what the soft delete stamps. With sharding each shard is purged in turn, and the directory
+ * rows of the purged clients go with them.
+ */
+@Component
+public class DeletedClientPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(DeletedClientPurger.class);
+
+    private static final String SELECT_EXPIRED =
+            "select id from CLIENT where deleted_at < ? order by deleted_at limit ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<ShardedDataSource> shardedDataSource;
+
+    @Autowired
+    private ObjectProvider<ClientDirectory> clientDirectory;
+
+    @Value("${client.purge.retention-hours:720}")
+    private long retentionHours;
+
+    @Value("${client.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${client.purge.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${client.purge.pause-ms:100}")
+    private long pauseMs;
+
+    private Counter purgedRows;
+
+    private Timer batchTimer;
+
+    /**
+     * Rows past retention left after the last run
+     */
+    private volatile long backlog;
+
+    /**
+     * How long the oldest row past retention had been waiting for the purge, after the last run
+     */
+    private volatile double lagSeconds;
+
+    @PostConstruct
+    public void bindMetrics() {
+        purgedRows = Counter.builder("client.purge.rows")
+                .description("Soft-deleted clients removed by the purge")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("client.purge.batch")
+                .description("Time to delete one purge batch")
+                .register(meterRegistry);
+        Gauge.builder("client.purge.backlog", this, purger -> purger.backlog)
+                .description("Soft-deleted clients past retention still waiting for the purge")
+                .register(meterRegistry);
+        Gauge.builder("client.purge.lag", this, purger -> purger.lagSeconds)
+                .description("How far past retention the oldest soft-deleted client is")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Purge one bounded run of expired rows (on each shard, with sharding)
+     */
+    @Scheduled(cron = "${client.purge.cron:0 */15 1-5 * * *}")
+    public void purge() {
+        ShardedDataSource shards = shardedDataSource.getIfAvailable();
+        long start = System.nanoTime();
+        int total = 0;
+        long pending = 0;
+        double lag = 0;
+        for (int shard = 0; shard < (shards != null ? shards.getShardCount() : 1); shard++) {
+            ShardRun run = ShardRouting.on(shard, this::purgeShard);
+            total += run.deleted();
+            pending += run.backlog();
+            lag = Math.max(lag, run.lagSeconds());
+        }
+        backlog = pending;
+        lagSeconds = lag;
+        if (total > 0) {
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            log.info("Purged {} deleted clients in {} s ({} left past retention)",
+                    total, String.format("%.1f", seconds), backlog);
+        }
+    }
+
+    private ShardRun purgeShard() {
+        ClientDirectory directory = clientDirectory.getIfAvailable();
+        LocalDateTime cutoff = databaseNow().minusHours(retentionHours);
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRED, Long.class, Timestamp.valueOf(cutoff), batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            // Re-checked in the DELETE: only rows that are still soft-deleted go
+            String sql = "delete from CLIENT where deleted_at is not null and id in ("
+                    + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+            int deleted = batchTimer.record(() -> jdbcTemplate.update(sql, ids.toArray()));
+            if (directory != null) {
+                directory.resync(ids);
+            }
+            purgedRows.increment(deleted);
+            total += deleted;
+            if (ids.size() < batchSize || !pause()) {
+                break;
+            }
+        }
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "select min(deleted_at) from CLIENT where deleted_at is not null", Timestamp.class);
+        long pending = jdbcTemplate.queryForObject(
+                "select count(*) from CLIENT where deleted_at < ?", Long.class, Timestamp.valueOf(cutoff));
+        double lag = oldest == null ? 0
+                : Math.max(0, Duration.between(oldest.toLocalDateTime(), cutoff).toMillis() / 1000.0);
+        return new ShardRun(total, pending, lag);
+    }
+
+    /**
+     * Remove soft-deleted clients still holding an email or username, so they can be taken again
+     *
+     * @return the number of clients removed (with sharding, of directory rows freed)
+     */
+    public int purgeHolding(String email, String username) {
+        ShardedDataSource shards = shardedDataSource.getIfAvailable();
+        ClientDirectory directory = clientDirectory.getIfAvailable();
+        if (shards == null || directory == null) {
+            int deleted = jdbcTemplate.update("delete from CLIENT where deleted_at is not null and (email = ? or username = ?)",
+                    email, username);
+            purgedRows.increment(deleted);
+            return deleted;
+        }
+        List<Long> ids = directory.idsHolding(email, username);
+        for (Long id : ids) {
+            int deleted = ShardRouting.on(shards.shardOf(id), () ->
+                    jdbcTemplate.update("delete from CLIENT where deleted_at is not null and id = ?", id));
+            purgedRows.increment(deleted);
+        }
+        // Also frees the keys of directory rows left without a client
+        return directory.resync(ids);
+    }
+
+    private LocalDateTime databaseNow() {
+        return jdbcTemplate.queryForObject("select current_timestamp(6)", Timestamp.class).toLocalDateTime();
+    }
+
+    private record ShardRun(int deleted, long backlog, double lagSeconds) {
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
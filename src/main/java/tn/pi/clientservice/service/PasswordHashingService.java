@@ -0,0 +1,256 @@
+package tn.pi.clientservice.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import tn.pi.clientservice.dto.PasswordHashingStatsDTO;
+import tn.pi.clientservice.exception.HashingCapacityExceededException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated, bounded pool so that
+ * CPU-heavy password work cannot take over the request threads. When the
+ * queue is full callers fail fast instead of piling up.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${client.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    /**
+     * Number of hashing threads; 0 means one per available processor
+     */
+    @Value("${client.password.hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${client.password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${client.password.hashing.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * One permit per pool thread and per queue slot; a task holds one until its work ends
+     */
+    private Semaphore admissions;
+
+    private Timer encodeTimer;
+
+    private Timer matchesTimer;
+
+    private Timer queueWaitTimer;
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private final LongAdder hashNanos = new LongAdder();
+
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        // Hashing is CPU-bound; bounded admission keeps a burst of logins from starving other requests.
+        // Admission is counted here rather than by a bounded queue: a task frees its slot before its
+        // result is published, so a caller that awaited it may submit again without finding the
+        // worker still on its way back to the queue.
+        admissions = new Semaphore(threads + queueCapacity);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("password-hashing-"));
+        bindMetrics();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hash a raw password
+     */
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Hash several raw passwords in parallel, in input order. At most one task per pool
+     * thread is in flight, so bulk work keeps every thread busy without filling the queue
+     * that interactive logins and registrations wait in.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        int window = executor.getMaximumPoolSize();
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        ArrayDeque<Future<String>> inFlight = new ArrayDeque<>(window);
+        try {
+            for (String rawPassword : rawPasswords) {
+                if (inFlight.size() == window) {
+                    hashes.add(await(inFlight.poll()));
+                }
+                inFlight.add(submit(encodeTimer, () -> passwordEncoder.encode(rawPassword)));
+            }
+            while (!inFlight.isEmpty()) {
+                hashes.add(await(inFlight.poll()));
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        return hashes;
+    }
+
+    /**
+     * Check a raw password against a stored hash
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Pool size, queue depth and hashing latency
+     */
+    public PasswordHashingStatsDTO stats() {
+        long count = completed.sum();
+        return PasswordHashingStatsDTO.builder()
+                .bcryptStrength(bcryptStrength)
+                .poolSize(executor.getMaximumPoolSize())
+                .activeCount(executor.getActiveCount())
+                .queueDepth(executor.getQueue().size())
+                .queueCapacity(queueCapacity)
+                .completedCount(count)
+                .rejectedCount(rejected.sum())
+                .timedOutCount(timedOut.sum())
+                .averageHashMillis(count == 0 ? 0.0 : hashNanos.sum() / 1_000_000.0 / count)
+                .maxHashMillis(maxHashNanos.get() / 1_000_000.0)
+                .averageQueueWaitMillis(count == 0 ? 0.0 : queueWaitNanos.sum() / 1_000_000.0 / count)
+                .build();
+    }
+
+    private void bindMetrics() {
+        encodeTimer = hashingTimer("encode");
+        matchesTimer = hashingTimer("matches");
+        queueWaitTimer = Timer.builder("client.password.hashing.queue.wait")
+                .description("Time a hashing task waited for a pool thread")
+                .register(meterRegistry);
+        FunctionCounter.builder("client.password.hashing.rejected", rejected, LongAdder::sum)
+                .description("Hashing tasks refused because the queue was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("client.password.hashing.timeouts", timedOut, LongAdder::sum)
+                .description("Hashing tasks abandoned after the timeout")
+                .register(meterRegistry);
+        // Pool size, active threads and queue depth as executor.* gauges
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    private Timer hashingTimer(String operation) {
+        return Timer.builder("client.password.hashing")
+                .description("BCrypt time on the hashing pool, excluding queue wait")
+                .tag("operation", operation)
+                .tag("strength", String.valueOf(bcryptStrength))
+                .register(meterRegistry);
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        return await(submit(timer, work));
+    }
+
+    private <T> Future<T> submit(Timer timer, Callable<T> work) {
+        if (!admissions.tryAcquire()) {
+            rejected.increment();
+            throw new HashingCapacityExceededException("Password hashing is at capacity, please retry later");
+        }
+        AtomicBoolean admitted = new AtomicBoolean(true);
+        Runnable release = () -> {
+            if (admitted.compareAndSet(true, false)) {
+                admissions.release();
+            }
+        };
+        long submittedAt = System.nanoTime();
+        FutureTask<T> task = new FutureTask<>(() -> {
+            long startedAt = System.nanoTime();
+            try {
+                return work.call();
+            } finally {
+                long elapsed = System.nanoTime() - startedAt;
+                queueWaitNanos.add(startedAt - submittedAt);
+                hashNanos.add(elapsed);
+                queueWaitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+                maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                completed.increment();
+                release.run();
+            }
+        }) {
+            @Override
+            protected void done() {
+                // Cancelled while still queued
+                release.run();
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            release.run();
+            rejected.increment();
+            throw new HashingCapacityExceededException("Password hashing is at capacity, please retry later", e);
+        }
+        return task;
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new HashingCapacityExceededException("Password hashing timed out, please retry later", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityExceededException("Password hashing was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
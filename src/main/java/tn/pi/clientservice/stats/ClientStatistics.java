@@ -0,0 +1,277 @@
+package tn.pi.clientservice.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientStatsDTO;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.repository.ClientStore;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Client counts by role, status and registration day, kept current from
+ * committed client changes so reads never touch the database. A scheduled
+ * group-by reconciliation replaces the counters with database counts,
+ * correcting any drift (changes made outside this service, or missed events).
+ */
+@Component
+public class ClientStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientStatistics.class);
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Events share the read lock (the counters are adders); swapping in reconciled counters takes the write lock
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Serializes reconciliations
+     */
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * Live counters; null until the first reconciliation completes
+     */
+    private volatile Counters counters;
+
+    /**
+     * Changes committed while a reconciliation reads the database, applied to its counters;
+     * set and drained under the write lock, appended to under the read lock
+     */
+    private volatile Queue<ClientChangedEvent> pendingDuringReconcile;
+
+    private volatile LocalDateTime lastReconciledAt;
+
+    private volatile long lastReconcileMillis;
+
+    private volatile long lastReconcileDrift;
+
+    /**
+     * Load the counters once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            // Statistics report as not ready until a reconciliation succeeds
+            log.error("Client statistics load failed", e);
+        }
+    }
+
+    /**
+     * Replace the counters with counts grouped in the database, all read from one snapshot.
+     * Changes committed meanwhile are held back and applied to the new counters as they are swapped in
+     * (one committed just before the snapshot whose event comes in after it is counted twice, until the
+     * next reconciliation).
+     */
+    @Scheduled(fixedDelayString = "${client.stats.reconcile-interval-ms:900000}",
+            initialDelayString = "${client.stats.reconcile-interval-ms:900000}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                pendingDuringReconcile = new ConcurrentLinkedQueue<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Counters fresh;
+            try {
+                TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+                snapshot.setReadOnly(true);
+                snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+                fresh = snapshot.execute(status -> count());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingDuringReconcile = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                pendingDuringReconcile.forEach(fresh::apply);
+                pendingDuringReconcile = null;
+                Counters previous = counters;
+                lastReconcileDrift = previous != null ? previous.driftFrom(fresh) : 0;
+                counters = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastReconciledAt = LocalDateTime.now();
+            lastReconcileMillis = System.currentTimeMillis() - start;
+            if (lastReconcileDrift > 0) {
+                log.info("Client statistics reconciled in {} ms, corrected a drift of {}", lastReconcileMillis, lastReconcileDrift);
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private Counters count() {
+        Counters fresh = new Counters();
+        clientRepository.countByRole()
+                .forEach(row -> fresh.byRole.get((UserRole) row[0]).add((Long) row[1]));
+        clientRepository.countByStatus()
+                .forEach(row -> fresh.byStatus.get((UserStatus) row[0]).add((Long) row[1]));
+        clientRepository.countByRegistrationDay()
+                .forEach(row -> fresh.day((LocalDate) row[0]).add((Long) row[1]));
+        fresh.byRole.values().forEach(count -> fresh.total.add(count.sum()));
+        return fresh;
+    }
+
+    /**
+     * Apply a committed client change to the counters
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClientChanged(ClientChangedEvent event) {
+        lock.readLock().lock();
+        try {
+            Counters current = counters;
+            if (current != null) {
+                current.apply(event);
+            }
+            Queue<ClientChangedEvent> pending = pendingDuringReconcile;
+            if (pending != null) {
+                pending.add(event);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Current counts, with registrations for the given number of most recent days
+     */
+    public ClientStatsDTO stats(int days) {
+        Counters current = counters;
+        ClientStatsDTO.ClientStatsDTOBuilder stats = ClientStatsDTO.builder()
+                .ready(current != null)
+                .lastReconciledAt(lastReconciledAt)
+                .lastReconcileMillis(lastReconcileMillis)
+                .lastReconcileDrift(lastReconcileDrift);
+        if (current == null) {
+            return stats.build();
+        }
+        Map<UserRole, Long> byRole = new EnumMap<>(UserRole.class);
+        current.byRole.forEach((role, count) -> byRole.put(role, count.sum()));
+        Map<UserStatus, Long> byStatus = new EnumMap<>(UserStatus.class);
+        current.byStatus.forEach((status, count) -> byStatus.put(status, count.sum()));
+        Map<LocalDate, Long> byDay = new LinkedHashMap<>();
+        current.byDay.tailMap(LocalDate.now().minusDays(days - 1L), true)
+                .forEach((day, count) -> {
+                    long sum = count.sum();
+                    if (sum > 0) {
+                        byDay.put(day, sum);
+                    }
+                });
+        return stats.total(current.total.sum())
+                .byRole(byRole)
+                .byStatus(byStatus)
+                .registrationsByDay(byDay)
+                .build();
+    }
+
+    private static final class Counters {
+
+        private final LongAdder total = new LongAdder();
+
+        private final Map<UserRole, LongAdder> byRole = new EnumMap<>(UserRole.class);
+
+        private final Map<UserStatus, LongAdder> byStatus = new EnumMap<>(UserStatus.class);
+
+        private final NavigableMap<LocalDate, LongAdder> byDay = new ConcurrentSkipListMap<>();
+
+        private Counters() {
+            for (UserRole role : UserRole.values()) {
+                byRole.put(role, new LongAdder());
+            }
+            for (UserStatus status : UserStatus.values()) {
+                byStatus.put(status, new LongAdder());
+            }
+        }
+
+        private LongAdder day(LocalDate day) {
+            return byDay.computeIfAbsent(day, key -> new LongAdder());
+        }
+
+        private void add(ClientDTO client, int delta) {
+            total.add(delta);
+            byRole.get(client.getRole()).add(delta);
+            byStatus.get(client.getStatus()).add(delta);
+            if (client.getCreatedAt() != null) {
+                day(client.getCreatedAt().toLocalDate()).add(delta);
+            }
+        }
+
+        private void apply(ClientChangedEvent event) {
+            switch (event.getType()) {
+                case REGISTERED -> add(event.getAfter(), 1);
+                case DELETED -> add(event.getBefore(), -1);
+                case UPDATED -> move(event.getBefore(), event.getAfter());
+                case PASSWORD_CHANGED -> {
+                }
+            }
+        }
+
+        private void move(ClientDTO before, ClientDTO after) {
+            if (before.getRole() != after.getRole()) {
+                byRole.get(before.getRole()).decrement();
+                byRole.get(after.getRole()).increment();
+            }
+            if (before.getStatus() != after.getStatus()) {
+                byStatus.get(before.getStatus()).decrement();
+                byStatus.get(after.getStatus()).increment();
+            }
+        }
+
+        /**
+         * Sum of absolute differences from the reconciled counts, over total, roles and statuses
+         */
+        private long driftFrom(Counters reconciled) {
+            long drift = Math.abs(total.sum() - reconciled.total.sum());
+            for (UserRole role : UserRole.values()) {
+                drift += Math.abs(byRole.get(role).sum() - reconciled.byRole.get(role).sum());
+            }
+            for (UserStatus status : UserStatus.values()) {
+                drift += Math.abs(byStatus.get(status).sum() - reconciled.byStatus.get(status).sum());
+            }
+            return drift;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Client table for H2 (tests, benchmarks and local runs) exactly as ddl-auto=update generated it;
+-- V1.1 (V1_1__Align_client_table) brings it up to the managed schema
+create table CLIENT (
+    created_at timestamp(6) not null,
+    id         bigint generated by default as identity,
+    updated_at timestamp(6) not null,
+    phone      varchar(20),
+    first_name varchar(50)  not null,
+    last_name  varchar(50)  not null,
+    username   varchar(50)  not null unique,
+    email      varchar(100) not null unique,
+    address    varchar(255),
+    password   varchar(255) not null,
+    role       enum ('ADMIN','CLIENT') not null,
+    status     enum ('ACTIVE','INACTIVE','SUSPENDED') not null,
+    primary key (id)
+);
@@ -0,0 +1,2 @@
+create index idx_client_created_at on CLIENT (created_at, id);
+create index idx_client_updated_at on CLIENT (updated_at, id);
@@ -0,0 +1,10 @@
+create table client_outbox (
+    id          bigint       generated by default as identity,
+    client_id   bigint       not null,
+    type        varchar(32)  not null,
+    payload     clob,
+    occurred_at timestamp(6) not null,
+    primary key (id)
+);
+
+create index idx_client_outbox_occurred_at on client_outbox (occurred_at);
@@ -0,0 +1 @@
+alter table CLIENT add column version bigint default 0 not null;
@@ -0,0 +1,29 @@
+create table client_import (
+    id          bigint        generated by default as identity,
+    filename    varchar(255)  not null,
+    path        varchar(1024) not null,
+    file_size   bigint        not null,
+    status      varchar(20)   not null,
+    next_offset bigint        default 0 not null,
+    rows_read   bigint        default 0 not null,
+    imported    bigint        default 0 not null,
+    failed      bigint        default 0 not null,
+    elapsed_ms  bigint        default 0 not null,
+    message     varchar(1000),
+    created_at  timestamp(6)  not null,
+    updated_at  timestamp(6)  not null,
+    finished_at timestamp(6),
+    primary key (id)
+);
+
+create table client_import_error (
+    id        bigint        generated by default as identity,
+    import_id bigint        not null,
+    record_no bigint        not null,
+    email     varchar(100),
+    username  varchar(50),
+    message   varchar(1000) not null,
+    primary key (id)
+);
+
+create index idx_client_import_error_import on client_import_error (import_id, id);
@@ -0,0 +1,7 @@
+create table client_heartbeat (
+    id      int    not null,
+    beat_ms bigint not null,
+    primary key (id)
+);
+
+insert into client_heartbeat (id, beat_ms) values (1, 0);
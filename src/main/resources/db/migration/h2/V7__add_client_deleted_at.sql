@@ -0,0 +1,3 @@
+-- Soft delete marker, see db/migration/mysql
+alter table CLIENT add column deleted_at timestamp(6) null;
+create index idx_client_deleted_at on CLIENT (deleted_at);
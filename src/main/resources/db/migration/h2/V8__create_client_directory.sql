@@ -0,0 +1,9 @@
+-- Shard directory, see db/migration/mysql
+create table client_directory (
+    id       bigint       generated by default as identity,
+    email    varchar(100) not null,
+    username varchar(50)  not null,
+    primary key (id),
+    constraint uk_client_directory_email unique (email),
+    constraint uk_client_directory_username unique (username)
+);
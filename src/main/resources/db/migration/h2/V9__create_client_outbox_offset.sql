@@ -0,0 +1,5 @@
+-- Outbox offsets with sharding enabled, see db/migration/mysql
+create table client_outbox_offset (
+    id bigint generated by default as identity,
+    primary key (id)
+);
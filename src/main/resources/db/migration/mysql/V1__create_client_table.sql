@@ -0,0 +1,23 @@
+-- Client table exactly as ddl-auto=update generated it; existing databases are baselined here.
+-- V1.1 (V1_1__Align_client_table) brings both up to the managed schema.
+create table CLIENT (
+    created_at datetime(6)  not null,
+    id         bigint       not null auto_increment,
+    updated_at datetime(6)  not null,
+    phone      varchar(20),
+    first_name varchar(50)  not null,
+    last_name  varchar(50)  not null,
+    username   varchar(50)  not null,
+    email      varchar(100) not null,
+    address    varchar(255),
+    password   varchar(255) not null,
+    role       enum ('ADMIN','CLIENT') not null,
+    status     enum ('ACTIVE','INACTIVE','SUSPENDED') not null,
+    primary key (id)
+) engine = InnoDB;
+
+alter table CLIENT
+    add constraint UK7eudi9ba5we0ti2ngwcomvuax unique (username);
+
+alter table CLIENT
+    add constraint UKq9pgbblh1qn046ee3kg2f46v1 unique (email);
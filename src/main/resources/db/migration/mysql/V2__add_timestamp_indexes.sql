@@ -0,0 +1,7 @@
+-- Time-ordered views and range filters on creation and last update
+create index idx_client_created_at on CLIENT (created_at, id);
+create index idx_client_updated_at on CLIENT (updated_at, id);
+
+-- Baselined databases may hold ids assigned before the pooled generator existed;
+-- move the sequence past them (one allocation block of headroom)
+update client_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 51 from CLIENT));
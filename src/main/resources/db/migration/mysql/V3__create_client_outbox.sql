@@ -0,0 +1,13 @@
+-- Transactional outbox: one row per client change, written in the same transaction as the change
+-- and relayed to subscribers in id order. The id is the resumable offset clients reconnect with.
+create table client_outbox (
+    id          bigint      not null auto_increment,
+    client_id   bigint      not null,
+    type        varchar(32) not null,
+    payload     text,
+    occurred_at datetime(6) not null,
+    primary key (id)
+) engine = InnoDB;
+
+-- Retention purge deletes by age
+create index idx_client_outbox_occurred_at on client_outbox (occurred_at);
@@ -0,0 +1,2 @@
+-- Optimistic locking: incremented on every update, exposed as the client's ETag
+alter table CLIENT add column version bigint default 0 not null;
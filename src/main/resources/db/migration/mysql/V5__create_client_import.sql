@@ -0,0 +1,32 @@
+-- Bulk CSV imports. next_offset is the byte offset of the first record not yet committed;
+-- it moves in the same transaction as each chunk's inserts, so a job resumes exactly there.
+create table client_import (
+    id          bigint        not null auto_increment,
+    filename    varchar(255)  not null,
+    path        varchar(1024) not null,
+    file_size   bigint        not null,
+    status      varchar(20)   not null,
+    next_offset bigint        not null default 0,
+    rows_read   bigint        not null default 0,
+    imported    bigint        not null default 0,
+    failed      bigint        not null default 0,
+    elapsed_ms  bigint        not null default 0,
+    message     varchar(1000),
+    created_at  datetime(6)   not null,
+    updated_at  datetime(6)   not null,
+    finished_at datetime(6),
+    primary key (id)
+) engine = InnoDB;
+
+-- Rejected rows, read back per import in id order
+create table client_import_error (
+    id        bigint        not null auto_increment,
+    import_id bigint        not null,
+    record_no bigint        not null,
+    email     varchar(100),
+    username  varchar(50),
+    message   varchar(1000) not null,
+    primary key (id)
+) engine = InnoDB;
+
+create index idx_client_import_error_import on client_import_error (import_id, id);
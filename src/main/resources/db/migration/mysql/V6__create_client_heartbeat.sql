@@ -0,0 +1,9 @@
+-- Replication heartbeat: the primary stamps this row periodically and each read replica's lag is
+-- measured by how far behind its copy of the stamp is. Only used when read routing is enabled.
+create table client_heartbeat (
+    id      int    not null,
+    beat_ms bigint not null,
+    primary key (id)
+) engine = InnoDB;
+
+insert into client_heartbeat (id, beat_ms) values (1, 0);
@@ -0,0 +1,4 @@
+-- Soft delete: a deleted client keeps its row (hidden from the application) until the purge job
+-- removes it; the index serves the purge's oldest-first scan
+alter table CLIENT add column deleted_at datetime(6) null;
+create index idx_client_deleted_at on CLIENT (deleted_at);
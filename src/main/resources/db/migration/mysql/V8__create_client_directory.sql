@@ -0,0 +1,11 @@
+-- Shard directory: with sharding enabled, the home shard's copy allocates client ids and holds
+-- every client's email and username, keeping them unique across shards and telling which shard
+-- holds a client looked up by either. Created on every shard; unused when sharding is off.
+create table client_directory (
+    id       bigint       not null auto_increment,
+    email    varchar(100) not null,
+    username varchar(50)  not null,
+    primary key (id),
+    constraint uk_client_directory_email unique (email),
+    constraint uk_client_directory_username unique (username)
+) engine = InnoDB;
@@ -0,0 +1,8 @@
+-- Outbox offsets with sharding enabled: each change's outbox row is written on its client's shard,
+-- in the transaction that writes the client, with an id allocated from the home shard's copy of this
+-- table so that ids stay one sequence across shards. Only the latest allocation is kept.
+-- Created on every shard; unused when sharding is off.
+create table client_outbox_offset (
+    id bigint not null auto_increment,
+    primary key (id)
+) engine = InnoDB;
@@ -1,10 +1,9 @@
 package tn.pi.clientservice;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
+import tn.pi.clientservice.support.IntegrationTest;
 
-@SpringBootTest
-class ClientServiceApplicationTests {
+class ClientServiceApplicationTests extends IntegrationTest {
 
     @Test
     void contextLoads() {
@@ -0,0 +1,106 @@
+package tn.pi.clientservice.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups by every key see committed changes, and a load racing an invalidation does not cache what it read
+ */
+class ClientCacheTest extends IntegrationTest {
+
+    @Autowired
+    private ClientCache clientCache;
+
+    @Test
+    void changesAreSeenThroughEveryKey() {
+        ClientDTO client = register();
+        // Cached under all three keys
+        clientService.findClientById(client.getId().intValue());
+        clientService.findClientByEmail(client.getEmail());
+        clientService.findClientByUsername(client.getUsername());
+
+        clientService.patchClient(client.getId().intValue(), ClientPatchDTO.builder().firstName("Renamed").build(), null);
+
+        assertThat(clientService.findClientById(client.getId().intValue())).get()
+                .extracting(ClientDTO::getFirstName).isEqualTo("Renamed");
+        assertThat(clientService.findClientByEmail(client.getEmail())).get()
+                .extracting(ClientDTO::getFirstName).isEqualTo("Renamed");
+        assertThat(clientService.findClientByUsername(client.getUsername())).get()
+                .extracting(ClientDTO::getFirstName).isEqualTo("Renamed");
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() throws Exception {
+        long id = 900_000L + nextNumber();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        // The reader loads the old state, then the change commits and invalidates before the reader caches it
+        CompletableFuture<Optional<ClientDTO>> read = CompletableFuture.supplyAsync(() -> clientCache.getById(id, key -> {
+            loading.countDown();
+            await(invalidated);
+            return Optional.of(dto(key, "Old"));
+        }));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+        clientCache.invalidate(id);
+        invalidated.countDown();
+        assertThat(read.get(10, TimeUnit.SECONDS)).get().extracting(ClientDTO::getFirstName).isEqualTo("Old");
+
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(clientCache.getById(id, key -> {
+            loads.incrementAndGet();
+            return Optional.of(dto(key, "New"));
+        })).get().extracting(ClientDTO::getFirstName).isEqualTo("New");
+        assertThat(loads).hasValue(1);
+        // Once nothing races it, a load is cached as usual
+        assertThat(clientCache.getById(id, key -> Optional.empty())).get()
+                .extracting(ClientDTO::getFirstName).isEqualTo("New");
+    }
+
+    @Test
+    void loadBySecondaryKeyOverlappingAnInvalidationIsNotCached() throws Exception {
+        long id = 900_000L + nextNumber();
+        ClientDTO old = dto(id, "Old");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+
+        CompletableFuture<Optional<ClientDTO>> read = CompletableFuture.supplyAsync(() -> clientCache.getByEmail(old.getEmail(), () -> {
+            loading.countDown();
+            await(invalidated);
+            return Optional.of(old);
+        }));
+        assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+        clientCache.invalidate(id);
+        invalidated.countDown();
+        read.get(10, TimeUnit.SECONDS);
+
+        assertThat(clientCache.getByUsername(old.getUsername(), () -> Optional.of(dto(id, "New")))).get()
+                .extracting(ClientDTO::getFirstName).isEqualTo("New");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ClientDTO dto(long id, String firstName) {
+        ClientDTO client = new ClientDTO(firstName, "Last", "cached" + id + "@example.com", "cached" + id, "password");
+        client.setId(id);
+        return client;
+    }
+}
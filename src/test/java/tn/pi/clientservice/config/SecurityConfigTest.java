@@ -0,0 +1,177 @@
+package tn.pi.clientservice.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests carrying real tokens from the login endpoint: only active clients with the right password get
+ * tokens, only access tokens authenticate requests, clients reach only their own record, and everything
+ * else, lookups by email or username included, is administration
+ */
+class SecurityConfigTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void loginRejectsAWrongPassword() throws Exception {
+        ClientDTO client = register();
+
+        mockMvc.perform(login(client.getUsername(), "wrong-password"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Invalid credentials"));
+    }
+
+    @Test
+    void loginRejectsAnInactiveClient() throws Exception {
+        ClientDTO client = register();
+        clientService.patchClient(client.getId().intValue(),
+                ClientPatchDTO.builder().status(UserStatus.SUSPENDED).build(), null);
+
+        mockMvc.perform(login(client.getUsername(), "password"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Account is not active"));
+    }
+
+    @Test
+    void onlyAccessTokensAuthenticateRequests() throws Exception {
+        ClientDTO client = register();
+        JsonNode tokens = tokens(client);
+
+        mockMvc.perform(get("/clients/{id}", client.getId()).header(HttpHeaders.AUTHORIZATION, bearer(tokens, "accessToken")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/clients/{id}", client.getId()).header(HttpHeaders.AUTHORIZATION, bearer(tokens, "refreshToken")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/clients/{id}", client.getId()))
+                .andExpect(status().isUnauthorized());
+
+        // Nor does an access token stand in for a refresh token
+        mockMvc.perform(json(post("/clients/refresh"), Map.of("refreshToken", tokens.path("accessToken").asText())))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(json(post("/clients/refresh"), Map.of("refreshToken", tokens.path("refreshToken").asText())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void clientsReachOnlyTheirOwnRecord() throws Exception {
+        ClientDTO client = register();
+        ClientDTO other = register();
+        String token = accessToken(client);
+
+        mockMvc.perform(get("/clients/{id}", other.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(put("/clients/{id}", other.getId()), other).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(patch("/clients/{id}", other.getId()), Map.of("firstName", "Changed"))
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(json(post("/clients/change-password/{id}", other.getId()), Map.of("newPassword", "changed-password"))
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(json(patch("/clients/{id}", client.getId()), Map.of("firstName", "Changed"))
+                        .header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Changed"));
+
+        // An administrator reaches any record
+        mockMvc.perform(get("/clients/{id}", other.getId()).header(HttpHeaders.AUTHORIZATION, accessToken(admin())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void administrationNeedsTheAdminRole() throws Exception {
+        ClientDTO client = register();
+        String clientToken = accessToken(client);
+        String adminToken = accessToken(admin());
+
+        for (String path : new String[]{"/clients", "/clients/stats", "/clients/role/CLIENT", "/clients/status/ACTIVE"}) {
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, clientToken)).andExpect(status().isForbidden());
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, adminToken)).andExpect(status().isOk());
+        }
+        mockMvc.perform(delete("/clients/{id}", client.getId()).header(HttpHeaders.AUTHORIZATION, clientToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/clients/{id}", client.getId()))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/clients/{id}", client.getId()).header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Intended: a lookup by email or username returns the whole record, so a client could read others' by guessing
+     * their email. Clients read their own record by id; anyone may still check whether a key is taken.
+     */
+    @Test
+    void lookupsByEmailOrUsernameAreForAdminsOnly() throws Exception {
+        ClientDTO client = register();
+        String clientToken = accessToken(client);
+        String adminToken = accessToken(admin());
+
+        for (String path : new String[]{"/clients/email/" + client.getEmail(), "/clients/username/" + client.getUsername()}) {
+            mockMvc.perform(get(path)).andExpect(status().isUnauthorized());
+            // Even for their own record
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, clientToken)).andExpect(status().isForbidden());
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, adminToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id").value(client.getId()));
+            mockMvc.perform(get(path + "/exists"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.exists").value(true));
+        }
+    }
+
+    private ClientDTO admin() {
+        ClientDTO admin = register();
+        return clientService.patchClient(admin.getId().intValue(), ClientPatchDTO.builder().role(UserRole.ADMIN).build(), null);
+    }
+
+    private String accessToken(ClientDTO client) throws Exception {
+        return bearer(tokens(client), "accessToken");
+    }
+
+    /**
+     * Log the client in with the fixture password and return the issued token pair
+     */
+    private JsonNode tokens(ClientDTO client) throws Exception {
+        String body = mockMvc.perform(login(client.getUsername(), "password"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).path("tokens");
+    }
+
+    private MockHttpServletRequestBuilder login(String username, String password) throws Exception {
+        return json(post("/clients/login"), Map.of("username", username, "password", password));
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+
+    private static String bearer(JsonNode tokens, String name) {
+        return "Bearer " + tokens.path(name).asText();
+    }
+}
@@ -0,0 +1,165 @@
+package tn.pi.clientservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ErrorResponse;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.exception.GlobalExceptionHandler;
+import tn.pi.clientservice.security.TokenService;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads answer 304 when If-None-Match names the current ETag; writes apply only when If-Match names the current
+ * version, "*" or no header matching any version, and a malformed or weak tag failing the precondition
+ */
+class ClientEtagTest extends IntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    @Test
+    void readsAnswerNotModifiedForTheCurrentTag() throws Exception {
+        ClientDTO client = register();
+        String etag = etagOf(client);
+
+        read(client, null).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, etag));
+        read(client, etag)
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        // Weak comparison, lists and "*" all match
+        read(client, "W/" + etag).andExpect(status().isNotModified());
+        read(client, "\"other\", " + etag).andExpect(status().isNotModified());
+        read(client, "*").andExpect(status().isNotModified());
+
+        // Once the client changes, the old tag gets the new state
+        patchAs(client, null).andExpect(status().isOk());
+        ClientDTO patched = clientService.findClientById(client.getId().intValue()).orElseThrow();
+        read(client, etag)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etagOf(patched)))
+                .andExpect(jsonPath("$.version").value(patched.getVersion()));
+    }
+
+    @Test
+    void writesNeedTheCurrentVersion() throws Exception {
+        ClientDTO client = register();
+        String stale = etagOf(client);
+
+        String current = putAs(client, stale)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(current).isNotEqualTo(stale);
+
+        putAs(client, stale).andExpect(status().isPreconditionFailed());
+        patchAs(client, stale).andExpect(status().isPreconditionFailed());
+
+        current = patchAs(client, current)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        putAs(client, current).andExpect(status().isOk());
+    }
+
+    @Test
+    void anyTagOrNoHeaderMatchesEveryVersion() throws Exception {
+        ClientDTO client = register();
+
+        putAs(client, "*").andExpect(status().isOk());
+        putAs(client, null).andExpect(status().isOk());
+        patchAs(client, "*").andExpect(status().isOk());
+        patchAs(client, null).andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(client.getVersion() + 4));
+    }
+
+    @Test
+    void malformedOrWeakTagsFailThePrecondition() throws Exception {
+        ClientDTO client = register();
+        String etag = etagOf(client);
+        ClientDTO other = register();
+
+        for (String ifMatch : new String[]{"W/" + etag, etag.replace("\"", ""), "\"" + client.getId() + "-\"",
+                "\"" + client.getId() + "-x\"", etagOf(other), "\"garbage"}) {
+            putAs(client, ifMatch).andExpect(status().isPreconditionFailed());
+            patchAs(client, ifMatch).andExpect(status().isPreconditionFailed());
+        }
+        // None of them wrote anything
+        assertThat(clientService.findClientById(client.getId().intValue()).orElseThrow().getVersion())
+                .isEqualTo(client.getVersion());
+    }
+
+    @Test
+    void concurrentUnconditionalUpdatesAnswerConflict() {
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleOptimisticLockingFailureException(
+                new ObjectOptimisticLockingFailureException(Client.class, 1));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    private ResultActions read(ClientDTO client, String ifNoneMatch) throws Exception {
+        MockHttpServletRequestBuilder request = get("/clients/{id}", client.getId());
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(authorized(request, client));
+    }
+
+    private ResultActions putAs(ClientDTO client, String ifMatch) throws Exception {
+        ClientDTO update = newClient();
+        update.setFirstName("Put" + nextNumber());
+        return write(put("/clients/{id}", client.getId()), client, update, ifMatch);
+    }
+
+    private ResultActions patchAs(ClientDTO client, String ifMatch) throws Exception {
+        return write(patch("/clients/{id}", client.getId()), client, Map.of("firstName", "Patch" + nextNumber()), ifMatch);
+    }
+
+    private ResultActions write(MockHttpServletRequestBuilder request, ClientDTO client, Object body, String ifMatch)
+            throws Exception {
+        request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(authorized(request, client));
+    }
+
+    /**
+     * The request as sent by the client itself, with a real access token
+     */
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request, ClientDTO client) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.issue(client).getAccessToken());
+    }
+
+    private static String etagOf(ClientDTO client) {
+        return "\"" + client.getId() + "-" + client.getVersion() + "\"";
+    }
+}
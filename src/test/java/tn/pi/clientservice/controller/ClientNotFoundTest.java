@@ -0,0 +1,79 @@
+package tn.pi.clientservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ErrorResponse;
+import tn.pi.clientservice.exception.GlobalExceptionHandler;
+import tn.pi.clientservice.exception.ResourceNotFoundException;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookup misses answer 404 with the shared error body, and not-found exceptions carry no stack trace.
+ * Unexpected errors answer a fixed message that reveals nothing of their cause.
+ */
+class ClientNotFoundTest extends IntegrationTest {
+
+    @Autowired
+    private ClientController clientController;
+
+    @Autowired
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void missesAnswerNotFoundWithTheSharedBody() throws Exception {
+        assertNotFound(clientController.getClientById(999_999, null), "Client not found with id: 999999");
+        assertNotFound(clientController.getClientByEmail("missing@example.com", null),
+                "Client not found with email: missing@example.com");
+        assertNotFound(clientController.getClientByUsername("missing", null),
+                "Client not found with username: missing");
+
+        assertThat(objectMapper.writeValueAsString(clientController.getClientById(999_999, null).getBody()))
+                .isEqualTo("{\"success\":false,\"message\":\"Client not found with id: 999999\"}");
+    }
+
+    @Test
+    void hitsStillAnswerTheClient() {
+        ClientDTO client = register();
+
+        ResponseEntity<?> response = clientController.getClientByUsername(client.getUsername(), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isInstanceOf(ClientDTO.class).extracting("id").isEqualTo(client.getId());
+    }
+
+    @Test
+    void thrownNotFoundIsStacklessAndMappedToTheSameBody() {
+        ResourceNotFoundException exception = new ResourceNotFoundException("Client not found with id: 1");
+        assertThat(exception.getStackTrace()).isEmpty();
+
+        assertNotFound(globalExceptionHandler.handleResourceNotFoundException(exception), "Client not found with id: 1");
+    }
+
+    @Test
+    void unexpectedErrorsAnswerAFixedMessage() {
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleGenericException(
+                new IllegalStateException("could not execute statement [select password from CLIENT]"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody()).isSameAs(ErrorResponse.UNEXPECTED_ERROR);
+        assertThat(response.getBody().getMessage()).isEqualTo("An unexpected error occurred");
+    }
+
+    private static void assertNotFound(ResponseEntity<?> response, String message) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody()).isInstanceOfSatisfying(ErrorResponse.class, body -> {
+            assertThat(body.isSuccess()).isFalse();
+            assertThat(body.getMessage()).isEqualTo(message);
+            assertThat(body.getErrors()).isNull();
+        });
+    }
+}
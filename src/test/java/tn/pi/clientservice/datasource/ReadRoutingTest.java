@@ -0,0 +1,201 @@
+package tn.pi.clientservice.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.migration.V1_1__Align_client_table;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read routing against three in-memory H2 databases standing in for a primary and two replicas.
+ * Replication is simulated by copying the heartbeat and inserting rows into the replicas directly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadRoutingTest.PRIMARY_URL,
+        "client.datasource.read-routing.enabled=true",
+        "client.datasource.read-routing.max-lag-ms=5000",
+        // Checks are run by the tests; the scheduled one only runs at startup
+        "client.datasource.read-routing.lag-check-interval-ms=3600000",
+        "client.datasource.read-routing.replicas[0].url=" + ReadRoutingTest.REPLICA_1_URL,
+        "client.datasource.read-routing.replicas[1].url=" + ReadRoutingTest.REPLICA_2_URL
+})
+class ReadRoutingTest extends IntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_1_URL = "jdbc:h2:mem:routing_replica_1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_2_URL = "jdbc:h2:mem:routing_replica_2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate primary = jdbc(PRIMARY_URL);
+
+    private static final JdbcTemplate replica1 = jdbc(REPLICA_1_URL);
+
+    private static final JdbcTemplate replica2 = jdbc(REPLICA_2_URL);
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * The replicas get the schema through the same migrations the primary ran
+     */
+    @BeforeAll
+    static void createReplicaSchemas() {
+        for (String url : List.of(REPLICA_1_URL, REPLICA_2_URL)) {
+            Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration/h2")
+                    .javaMigrations(new V1_1__Align_client_table()).load().migrate();
+        }
+    }
+
+    @BeforeEach
+    void replicasCaughtUp() {
+        replicateHeartbeat(replica1, 0);
+        replicateHeartbeat(replica2, 0);
+        lagMonitor.checkReplicas();
+    }
+
+    @Test
+    void readOnlyLookupsAndListingsAreServedByTheReplicas() {
+        String username = insertOnReplicas(UserStatus.SUSPENDED, replica1, replica2);
+        double replicaReads = replicaReads();
+
+        assertThat(usernames(clientService.getClientsByStatus(UserStatus.SUSPENDED))).contains(username);
+        assertThat(clientService.findClientByUsername(username)).isPresent();
+        assertThat(replicaReads()).isGreaterThan(replicaReads);
+        assertThat(primary.queryForObject("select count(*) from client where username = ?", Integer.class, username))
+                .isZero();
+    }
+
+    @Test
+    void writesGoToThePrimary() {
+        ClientDTO client = register();
+
+        assertThat(count(primary, client.getUsername())).isOne();
+        assertThat(count(replica1, client.getUsername())).isZero();
+        assertThat(count(replica2, client.getUsername())).isZero();
+    }
+
+    @Test
+    void readsAfterAWriteInTheSameRequestStayOnThePrimary() {
+        ClientDTO client;
+        ReadRouting.beginRequest();
+        try {
+            client = register();
+            assertThat(usernames(clientService.getClientsByRole(UserRole.CLIENT))).contains(client.getUsername());
+        } finally {
+            ReadRouting.endRequest();
+        }
+
+        // A later request reads from the replicas, which have not received the client
+        assertThat(usernames(clientService.getClientsByRole(UserRole.CLIENT))).doesNotContain(client.getUsername());
+    }
+
+    @Test
+    void laggingReplicasAreSkipped() {
+        replicateHeartbeat(replica1, 0);
+        replicateHeartbeat(replica2, 60_000);
+        lagMonitor.checkReplicas();
+        assertThat(replicaDataSource.getReplicas()).extracting(replica -> replica.healthy).containsExactly(true, false);
+        assertThat(replicaDataSource.getReplicas().get(1).lagMillis).isGreaterThanOrEqualTo(60_000);
+
+        String staleOnly = insertOnReplicas(UserStatus.INACTIVE, replica2);
+        for (int i = 0; i < 4; i++) {
+            assertThat(usernames(clientService.getClientsByStatus(UserStatus.INACTIVE))).doesNotContain(staleOnly);
+        }
+
+        // With every replica behind, reads fall back to the primary
+        ClientDTO client = register();
+        replicateHeartbeat(replica1, 60_000);
+        replicateHeartbeat(replica2, 60_000);
+        lagMonitor.checkReplicas();
+        assertThat(replicaDataSource.getReplicas()).extracting(replica -> replica.healthy).containsExactly(false, false);
+        assertThat(usernames(clientService.getClientsByRole(UserRole.CLIENT))).contains(client.getUsername());
+    }
+
+    @Test
+    void passwordChangesReadTheClientFromThePrimary() {
+        ClientDTO client = register();
+        // The replicas still hold an older copy of the row, under an older password
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (JdbcTemplate replica : List.of(replica1, replica2)) {
+            replica.update("insert into client (id, first_name, last_name, email, username, password, role, status, "
+                            + "created_at, updated_at, version) values (?, ?, ?, ?, ?, 'stale-hash', ?, ?, ?, ?, ?)",
+                    client.getId(), client.getFirstName(), client.getLastName(), client.getEmail(), client.getUsername(),
+                    UserRole.CLIENT.name(), UserStatus.ACTIVE.name(), now, now, client.getVersion());
+        }
+        entityManagerFactory.getCache().evictAll();
+
+        clientService.changePassword(client.getId().intValue(), "password", "new-password");
+
+        assertThat(primary.queryForObject("select version from client where id = ?", Long.class, client.getId()))
+                .isEqualTo(client.getVersion() + 1);
+        entityManagerFactory.getCache().evictAll();
+        clientService.changePassword(client.getId().intValue(), "new-password", "password");
+    }
+
+    /**
+     * Give a replica the primary's latest heartbeat, minus the given lag
+     */
+    private static void replicateHeartbeat(JdbcTemplate replica, long lagMillis) {
+        long beat = primary.queryForObject("select beat_ms from client_heartbeat where id = 1", Long.class);
+        replica.update("update client_heartbeat set beat_ms = ? where id = 1", beat - lagMillis);
+    }
+
+    private static String insertOnReplicas(UserStatus status, JdbcTemplate... replicas) {
+        int n = nextNumber();
+        String username = "replicated" + n;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (JdbcTemplate replica : replicas) {
+            replica.update("insert into client (id, first_name, last_name, email, username, password, role, status, "
+                            + "created_at, updated_at, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                    1_000_000 + n, "First" + n, "Last" + n, username + "@example.com", username, "hash",
+                    UserRole.CLIENT.name(), status.name(), now, now);
+        }
+        return username;
+    }
+
+    private double replicaReads() {
+        return meterRegistry.find("client.datasource.connections").tag("access", "read").counters().stream()
+                .filter(counter -> counter.getId().getTag("datasource").contains("-replica-"))
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private static int count(JdbcTemplate db, String username) {
+        return db.queryForObject("select count(*) from client where username = ?", Integer.class, username);
+    }
+
+    private static List<String> usernames(List<ClientSummaryDTO> clients) {
+        return clients.stream().map(ClientSummaryDTO::getUsername).toList();
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+}
@@ -0,0 +1,251 @@
+package tn.pi.clientservice.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.dto.BatchItemResultDTO;
+import tn.pi.clientservice.dto.BatchRegistrationResultDTO;
+import tn.pi.clientservice.dto.ClientChangeDTO;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.ExportFormat;
+import tn.pi.clientservice.event.ClientChangedEvent;
+import tn.pi.clientservice.exception.ResourceAlreadyExistsException;
+import tn.pi.clientservice.export.ClientExporter;
+import tn.pi.clientservice.mapper.ClientDTOMapper;
+import tn.pi.clientservice.outbox.ClientOutbox;
+import tn.pi.clientservice.repository.ClientStore;
+import tn.pi.clientservice.service.BatchRegistrationService;
+import tn.pi.clientservice.service.DeletedClientPurger;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sharded client storage across three in-memory H2 databases: the home shard and two more
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingTest.HOME_URL,
+        "client.datasource.sharding.enabled=true",
+        "client.datasource.sharding.shards[0].url=" + ShardingTest.SHARD_1_URL,
+        "client.datasource.sharding.shards[1].url=" + ShardingTest.SHARD_2_URL
+})
+class ShardingTest extends IntegrationTest {
+
+    static final String HOME_URL = "jdbc:h2:mem:sharding_home;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    static final String SHARD_1_URL = "jdbc:h2:mem:sharding_shard_1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    static final String SHARD_2_URL = "jdbc:h2:mem:sharding_shard_2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    /**
+     * The shards by number, read directly
+     */
+    private static final List<JdbcTemplate> shards = List.of(jdbc(HOME_URL), jdbc(SHARD_1_URL), jdbc(SHARD_2_URL));
+
+    @Autowired
+    private BatchRegistrationService batchRegistrationService;
+
+    @Autowired
+    private ClientStore clientRepository;
+
+    @Autowired
+    private DeletedClientPurger deletedClientPurger;
+
+    @Autowired
+    private ShardedDataSource shardedDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClientOutbox clientOutbox;
+
+    @Autowired
+    private ClientDTOMapper clientDTOMapper;
+
+    @Autowired
+    private ClientExporter clientExporter;
+
+    @Test
+    void clientsAreStoredOnTheShardOfTheirIdAndFoundByAnyKey() {
+        List<ClientDTO> clients = IntStream.range(0, 12).mapToObj(i -> register()).toList();
+
+        for (ClientDTO client : clients) {
+            int shard = shardedDataSource.shardOf(client.getId());
+            for (int i = 0; i < shards.size(); i++) {
+                assertThat(rowCount(i, client.getId())).as("client %d on shard %d", client.getId(), i)
+                        .isEqualTo(i == shard ? 1 : 0);
+                // Its registration was recorded in the same transaction, on the same shard
+                assertThat(shards.get(i).queryForObject("select count(*) from client_outbox where client_id = ?",
+                        Integer.class, client.getId())).isEqualTo(i == shard ? 1 : 0);
+            }
+            assertThat(clientService.findClientById(client.getId().intValue())).get()
+                    .extracting(ClientDTO::getEmail).isEqualTo(client.getEmail());
+            assertThat(clientRepository.findByEmail(client.getEmail())).get()
+                    .extracting(Client::getId).isEqualTo(client.getId());
+            assertThat(clientRepository.findByUsername(client.getUsername())).get()
+                    .extracting(Client::getId).isEqualTo(client.getId());
+        }
+        assertThat(clients.stream().map(client -> shardedDataSource.shardOf(client.getId())).distinct().count())
+                .isGreaterThan(1);
+        assertThat(clientRepository.findByEmail("nobody@example.com")).isEmpty();
+    }
+
+    @Test
+    void listingsMergeTheShardsInIdOrderAndCountsAddUp() {
+        IntStream.range(0, 10).forEach(i -> register());
+        long total = IntStream.range(0, shards.size())
+                .mapToLong(i -> shards.get(i).queryForObject("select count(*) from CLIENT where deleted_at is null", Long.class))
+                .sum();
+
+        List<Long> all = clientService.getAllClients().stream().map(ClientDTO::getId).toList();
+        assertThat(all).hasSize((int) total).isSortedAccordingTo(Comparator.naturalOrder());
+        assertThat(clientRepository.count()).isEqualTo(total);
+        assertThat(clientRepository.countByRole().stream().mapToLong(row -> (Long) row[1]).sum()).isEqualTo(total);
+
+        List<Long> paged = new ArrayList<>();
+        ClientPageDTO<ClientDTO> page = clientService.getClientsPage(null, 3);
+        page.getContent().forEach(client -> paged.add(client.getId()));
+        while (page.isHasNext()) {
+            page = clientService.getClientsPage(page.getNextCursor(), 3);
+            page.getContent().forEach(client -> paged.add(client.getId()));
+        }
+        assertThat(paged).isEqualTo(all);
+
+        assertThat(clientRepository.findSummariesByRoleAfter(UserRole.CLIENT, 0L, Limit.of(4)))
+                .extracting(summary -> summary.getId())
+                .isEqualTo(all.subList(0, 4));
+    }
+
+    @Test
+    void exportsMergeTheShardsInIdOrder() throws IOException {
+        IntStream.range(0, 10).forEach(i -> register());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        clientExporter.export(ExportFormat.CSV, false, out);
+
+        // The fixture's fields need no quoting, so each line is one client
+        List<Long> exported = Arrays.stream(out.toString(StandardCharsets.UTF_8).split("\r\n"))
+                .skip(1)
+                .map(line -> Long.valueOf(line.substring(0, line.indexOf(','))))
+                .toList();
+        List<Long> all = clientService.getAllClients().stream().map(ClientDTO::getId).toList();
+        assertThat(exported).isEqualTo(all).isSortedAccordingTo(Comparator.naturalOrder());
+        assertThat(exported.stream().map(shardedDataSource::shardOf).distinct().count()).isGreaterThan(1);
+    }
+
+    @Test
+    void emailsAndUsernamesAreUniqueAcrossShards() {
+        ClientDTO first = register();
+        // A new client's id, and so its shard, is only known once the directory has accepted its keys
+        Client duplicate = newEntity(first.getEmail(), "other" + nextNumber());
+
+        assertThatThrownBy(() -> clientRepository.save(duplicate)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(IntStream.range(0, shards.size())
+                .map(i -> shards.get(i).queryForObject("select count(*) from CLIENT where email = ?", Integer.class,
+                        first.getEmail()))
+                .sum()).isEqualTo(1);
+
+        // A rename is checked against every shard too
+        ClientDTO other = IntStream.range(0, 20).mapToObj(i -> register())
+                .filter(client -> shardedDataSource.shardOf(client.getId()) != shardedDataSource.shardOf(first.getId()))
+                .findFirst().orElseThrow();
+        ClientPatchDTO patch = ClientPatchDTO.builder().username(first.getUsername()).build();
+        assertThatThrownBy(() -> clientService.patchClient(other.getId().intValue(), patch, null))
+                .isInstanceOf(ResourceAlreadyExistsException.class)
+                .hasMessageContaining("Username already exists");
+        assertThat(clientRepository.findByUsername(other.getUsername())).isPresent();
+    }
+
+    @Test
+    void batchesSpanShardsAndRollBackAsOne() {
+        List<ClientDTO> batch = IntStream.range(0, 8).mapToObj(i -> newClient()).toList();
+        BatchRegistrationResultDTO result = batchRegistrationService.registerClients(batch);
+
+        assertThat(result.getRegistered()).isEqualTo(batch.size());
+        assertThat(result.getItems().stream().map(item -> shardedDataSource.shardOf(item.getId())).distinct().count())
+                .isGreaterThan(1);
+        // Each registration's outbox row is on its client's shard, and the outbox reads them back as one sequence
+        for (BatchItemResultDTO item : result.getItems()) {
+            for (int i = 0; i < shards.size(); i++) {
+                assertThat(shards.get(i).queryForObject("select count(*) from client_outbox where client_id = ?",
+                        Integer.class, item.getId())).isEqualTo(i == shardedDataSource.shardOf(item.getId()) ? 1 : 0);
+            }
+        }
+        List<ClientChangeDTO> changes = clientOutbox.findAfter(0, Integer.MAX_VALUE);
+        assertThat(changes).extracting(ClientChangeDTO::getId).doesNotHaveDuplicates()
+                .isSortedAccordingTo(Comparator.naturalOrder());
+        assertThat(changes).extracting(ClientChangeDTO::getClientId)
+                .containsAll(result.getItems().stream().map(BatchItemResultDTO::getId).toList());
+
+        List<Client> rolledBack = IntStream.range(0, 8).mapToObj(i -> newEntity(null, null)).toList();
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            clientRepository.saveAll(rolledBack, written -> clientOutbox.appendAll(written.stream()
+                    .map(client -> ClientChangedEvent.registered(clientDTOMapper.mapToDTO(client))).toList()));
+            throw new IllegalStateException("rollback");
+        })).hasMessage("rollback");
+        for (Client client : rolledBack) {
+            assertThat(rowCount(shardedDataSource.shardOf(client.getId()), client.getId())).isZero();
+            assertThat(shards.get(shardedDataSource.shardOf(client.getId())).queryForObject(
+                    "select count(*) from client_outbox where client_id = ?", Integer.class, client.getId())).isZero();
+            assertThat(clientRepository.existsByEmail(client.getEmail())).isFalse();
+        }
+        // Their keys are free again
+        assertThat(batchRegistrationService.registerClients(rolledBack.stream()
+                .map(client -> new ClientDTO("First", "Last", client.getEmail(), client.getUsername(), "password"))
+                .toList()).getRegistered()).isEqualTo(rolledBack.size());
+    }
+
+    @Test
+    void purgeRemovesDeletedClientsFromTheirShardAndTheDirectory() {
+        ClientDTO client = register();
+        clientService.deleteClient(client.getId().intValue());
+
+        deletedClientPurger.purge();
+
+        assertThat(rowCount(shardedDataSource.shardOf(client.getId()), client.getId())).isZero();
+        assertThat(shards.get(ShardRouting.HOME).queryForObject(
+                "select count(*) from client_directory where id = ?", Integer.class, client.getId())).isZero();
+        assertThat(clientService.registerClient(new ClientDTO("First", "Last", client.getEmail(), client.getUsername(),
+                "password")).getId()).isNotEqualTo(client.getId());
+    }
+
+    private static Client newEntity(String email, String username) {
+        int n = nextNumber();
+        Client client = new Client();
+        client.setFirstName("First" + n);
+        client.setLastName("Last" + n);
+        client.setEmail(email != null ? email : "sharded" + n + "@example.com");
+        client.setUsername(username != null ? username : "sharded" + n);
+        client.setPassword("password-hash");
+        return client;
+    }
+
+    private static int rowCount(int shard, long id) {
+        return shards.get(shard).queryForObject("select count(*) from CLIENT where id = ?", Integer.class, id);
+    }
+
+    private static JdbcTemplate jdbc(String url) {
+        return new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+    }
+}
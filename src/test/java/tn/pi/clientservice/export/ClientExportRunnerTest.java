@@ -0,0 +1,48 @@
+package tn.pi.clientservice.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Started with an output file, the application writes the export during startup and reports a zero exit
+ * code for main to exit with, rather than exiting from inside the context
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export_runner;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "client.export.output=" + ClientExportRunnerTest.OUTPUT,
+        "client.export.format=ndjson"
+})
+class ClientExportRunnerTest {
+
+    static final String OUTPUT = "target/client-export-runner-test.ndjson.gz";
+
+    @Autowired
+    private ClientExportRunner clientExportRunner;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void exportIsWrittenAtStartupAndExitsCleanly() throws IOException {
+        // Not left over from an earlier run
+        assertThat(Files.getLastModifiedTime(Path.of(OUTPUT)).toMillis())
+                .isGreaterThanOrEqualTo(context.getStartupDate() / 1000 * 1000);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(Path.of(OUTPUT)))) {
+            // Only the administrator the application bootstraps, if any, is there to export
+            String ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertThat(ndjson.lines()).allSatisfy(line -> assertThat(line).startsWith("{\"id\":"));
+        }
+        assertThat(clientExportRunner.getExitCode()).isZero();
+    }
+}
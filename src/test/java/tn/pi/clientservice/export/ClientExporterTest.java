@@ -0,0 +1,112 @@
+package tn.pi.clientservice.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ExportResultDTO;
+import tn.pi.clientservice.enums.ExportFormat;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports write every live client once, in id order, without passwords: CSV quoted where a field needs it,
+ * NDJSON with the API's field names, either one gzip-compressed on request
+ */
+class ClientExporterTest extends IntegrationTest {
+
+    @Autowired
+    private ClientExporter clientExporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void csvQuotesFieldsThatNeedItAndLeavesNullsEmpty() throws IOException {
+        ClientDTO client = newClient();
+        client.setFirstName("Jean, \"JJ\"");
+        client.setAddress("12 Rue de Rome\nTunis");
+        client = clientService.registerClient(client);
+
+        String csv = export(ExportFormat.CSV, false);
+
+        assertThat(csv).startsWith("id,first_name,last_name,email,phone,username,address,role,status,created_at,updated_at\r\n");
+        // The phone is null: an empty field, as opposed to a quoted empty string
+        assertThat(csv).contains("\r\n" + client.getId() + ",\"Jean, \"\"JJ\"\"\"," + client.getLastName() + ","
+                + client.getEmail() + ",," + client.getUsername() + ",\"12 Rue de Rome\nTunis\",CLIENT,ACTIVE,");
+    }
+
+    @Test
+    void ndjsonUsesTheApiFieldNames() throws IOException {
+        ClientDTO client = register();
+
+        JsonNode row = ndjsonRows(export(ExportFormat.NDJSON, false)).stream()
+                .filter(node -> node.path("id").asLong() == client.getId())
+                .findFirst().orElseThrow();
+
+        List<String> fields = new ArrayList<>();
+        row.fieldNames().forEachRemaining(fields::add);
+        assertThat(fields).containsExactly("id", "firstName", "lastName", "email", "phone", "username",
+                "address", "role", "status", "createdAt", "updatedAt");
+        assertThat(row.path("email").asText()).isEqualTo(client.getEmail());
+        assertThat(row.path("phone").isNull()).isTrue();
+        assertThat(row.path("role").asText()).isEqualTo("CLIENT");
+    }
+
+    @Test
+    void gzipOutputDecompressesToThePlainExport() throws IOException {
+        register();
+
+        for (ExportFormat format : ExportFormat.values()) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            ExportResultDTO result = clientExporter.export(format, true, compressed);
+            String plain = export(format, false);
+
+            assertThat(result.isGzip()).isTrue();
+            assertThat(result.getBytes()).isEqualTo(compressed.size());
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(plain);
+            }
+        }
+    }
+
+    @Test
+    void deletedClientsAndPasswordsAreLeftOut() throws IOException {
+        ClientDTO kept = register();
+        ClientDTO deleted = register();
+        clientService.deleteClient(deleted.getId().intValue());
+
+        String csv = export(ExportFormat.CSV, false);
+        List<JsonNode> rows = ndjsonRows(export(ExportFormat.NDJSON, false));
+
+        assertThat(csv).contains("\r\n" + kept.getId() + ",").doesNotContain("\r\n" + deleted.getId() + ",");
+        assertThat(rows).extracting(row -> row.path("id").asLong()).contains(kept.getId()).doesNotContain(deleted.getId())
+                .isSorted().doesNotHaveDuplicates();
+        // Neither a column nor any BCrypt hash
+        assertThat(csv + rows).doesNotContainIgnoringCase("password").doesNotContain("$2a$");
+    }
+
+    private String export(ExportFormat format, boolean gzip) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        clientExporter.export(format, gzip, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<JsonNode> ndjsonRows(String ndjson) throws IOException {
+        List<JsonNode> rows = new ArrayList<>();
+        Iterator<JsonNode> values = objectMapper.readerFor(JsonNode.class).readValues(ndjson);
+        values.forEachRemaining(rows::add);
+        return rows;
+    }
+}
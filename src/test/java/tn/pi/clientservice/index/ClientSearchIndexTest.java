@@ -0,0 +1,64 @@
+package tn.pi.clientservice.index;
+
+import org.junit.jupiter.api.Test;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.dto.ClientSearchResultDTO;
+import tn.pi.clientservice.dto.ClientSummaryDTO;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search ranks exact, prefix, word-prefix and substring matches in that order, and follows every write
+ */
+class ClientSearchIndexTest extends IntegrationTest {
+
+    @Test
+    void matchesAreRankedAndPaged() {
+        // Registered worst match first, so the order cannot come from the ids
+        ClientDTO substring = register("Anna", "Martin", "xxquorbyy");
+        ClientDTO wordPrefix = register("Anna", "Ben Quorb", null);
+        ClientDTO fieldPrefix = register("Quorbina", "Martin", null);
+        ClientDTO exact = register("QUORB", "Martin", null);
+
+        ClientSearchResultDTO first = clientService.searchClients("quorb", 0, 2);
+        assertThat(first.getTotal()).isEqualTo(4);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getContent()).extracting(ClientSummaryDTO::getId).containsExactly(exact.getId(), fieldPrefix.getId());
+        ClientSearchResultDTO second = clientService.searchClients("quorb", 1, 2);
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getContent()).extracting(ClientSummaryDTO::getId).containsExactly(wordPrefix.getId(), substring.getId());
+
+        // Below three characters only prefixes match; equal scores keep id order
+        List<Long> ours = List.of(substring.getId(), wordPrefix.getId(), fieldPrefix.getId(), exact.getId());
+        assertThat(clientService.searchClients("Qu", 0, 20).getContent()).extracting(ClientSummaryDTO::getId)
+                .filteredOn(ours::contains)
+                .containsExactly(fieldPrefix.getId(), exact.getId(), wordPrefix.getId());
+    }
+
+    @Test
+    void updatesAndDeletionsAreSearchable() {
+        ClientDTO renamed = register("Velmora", "Martin", null);
+        ClientDTO deleted = register("Velmora", "Durand", null);
+
+        clientService.patchClient(renamed.getId().intValue(), ClientPatchDTO.builder().firstName("Castellane").build(), null);
+        clientService.deleteClient(deleted.getId().intValue());
+
+        assertThat(clientService.searchClients("velmora", 0, 10).getTotal()).isZero();
+        assertThat(clientService.searchClients("castel", 0, 10).getContent()).extracting(ClientSummaryDTO::getId)
+                .containsExactly(renamed.getId());
+    }
+
+    private ClientDTO register(String firstName, String lastName, String username) {
+        ClientDTO client = newClient();
+        client.setFirstName(firstName);
+        client.setLastName(lastName);
+        if (username != null) {
+            client.setUsername(username);
+        }
+        return clientService.registerClient(client);
+    }
+}
@@ -0,0 +1,97 @@
+package tn.pi.clientservice.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The Bloom filters rule out free keys without a query and never lose a key, even one added while they are rebuilt
+ */
+class UniquenessIndexTest extends IntegrationTest {
+
+    @Autowired
+    private UniquenessIndex uniquenessIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void freeKeysAreRuledOutWithoutAQueryAndTakenOnesAreConfirmed() {
+        ClientDTO client = register();
+        uniquenessIndex.rebuild();
+        AtomicInteger queries = new AtomicInteger();
+
+        assertThat(uniquenessIndex.emailExists("  " + client.getEmail().toUpperCase() + " ", email -> {
+            queries.incrementAndGet();
+            return true;
+        })).isTrue();
+        assertThat(queries).hasValue(1);
+
+        assertThat(uniquenessIndex.usernameExists("free" + nextNumber(), username -> {
+            queries.incrementAndGet();
+            return false;
+        })).isFalse();
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void keysAddedDuringRebuildsAreNeverLost() throws Exception {
+        uniquenessIndex.rebuild();
+        ConcurrentLinkedQueue<String> added = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        int rebuilds = 0;
+        try {
+            List<Future<?>> adders = IntStream.range(0, 3).<Future<?>>mapToObj(i -> executor.submit(() -> {
+                for (int j = 0; j < 300; j++) {
+                    // Committed first, then added, as the write paths do
+                    String key = insert();
+                    uniquenessIndex.add(key + "@example.com", key);
+                    added.add(key);
+                }
+            })).toList();
+            while (!adders.stream().allMatch(Future::isDone)) {
+                uniquenessIndex.rebuild();
+                rebuilds++;
+            }
+            for (Future<?> adder : adders) {
+                adder.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(rebuilds).isPositive();
+        assertThat(added).hasSize(900);
+        // Only a definite negative from the filter answers false here, as the repository check always says taken
+        assertThat(added.stream().filter(key -> !uniquenessIndex.emailExists(key + "@example.com", email -> true)
+                || !uniquenessIndex.usernameExists(key, username -> true))).isEmpty();
+    }
+
+    private String insert() {
+        int n = nextNumber();
+        String key = "added" + n;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("insert into client (id, first_name, last_name, email, username, password, role, status, "
+                        + "created_at, updated_at, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                1_000_000 + n, "First" + n, "Last" + n, key + "@example.com", key, "hash",
+                UserRole.CLIENT.name(), UserStatus.ACTIVE.name(), now, now);
+        return key;
+    }
+}
@@ -0,0 +1,136 @@
+package tn.pi.clientservice.migration;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.service.ClientService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A database created by ddl-auto=update before Flyway is baselined at V1 and brought to the managed schema
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + PreFlywaySchemaMigrationTest.URL,
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=1"
+})
+class PreFlywaySchemaMigrationTest {
+
+    static final String URL = "jdbc:h2:mem:pre_flyway;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final int EXISTING_CLIENTS = 3;
+
+    static {
+        // The table as ddl-auto=update generated it, with clients in it, before the context starts
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbc.execute("""
+                create table CLIENT (
+                    created_at timestamp(6) not null,
+                    id         bigint generated by default as identity,
+                    updated_at timestamp(6) not null,
+                    phone      varchar(20),
+                    first_name varchar(50)  not null,
+                    last_name  varchar(50)  not null,
+                    username   varchar(50)  not null unique,
+                    email      varchar(100) not null unique,
+                    address    varchar(255),
+                    password   varchar(255) not null,
+                    role       enum ('ADMIN','CLIENT') not null,
+                    status     enum ('ACTIVE','INACTIVE','SUSPENDED') not null,
+                    primary key (id)
+                )""");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 1; i <= EXISTING_CLIENTS; i++) {
+            jdbc.update("insert into CLIENT (first_name, last_name, email, username, password, role, status, "
+                            + "created_at, updated_at) values (?, ?, ?, ?, 'hash', 'CLIENT', 'ACTIVE', ?, ?)",
+                    "First" + i, "Last" + i, "existing" + i + "@example.com", "existing" + i, now, now);
+        }
+    }
+
+    @Autowired
+    private ClientService clientService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void baselinedDatabaseGetsEveryLaterMigration() {
+        assertThat(jdbcTemplate.queryForObject(
+                "select type from flyway_schema_history where version = '1'", String.class)).isEqualTo("BASELINE");
+        List<String> applied = jdbcTemplate.queryForList(
+                "select version from flyway_schema_history where success and version > '1' order by installed_rank",
+                String.class);
+        assertThat(applied).startsWith("1.1", "2").endsWith("9");
+
+        assertThat(uniqueConstraints()).contains("uk_client_email", "uk_client_username");
+        assertThat(jdbcTemplate.queryForList(
+                "select index_name from information_schema.indexes where table_name = 'client'", String.class))
+                .contains("idx_client_role_id", "idx_client_status_id");
+    }
+
+    @Test
+    void existingClientsKeepTheirIdsAndKeysStayUnique() {
+        ClientDTO registered = clientService.registerClient(
+                new ClientDTO("First", "Last", "new@example.com", "newcomer", "password"));
+
+        assertThat(registered.getId()).isGreaterThan(EXISTING_CLIENTS);
+        assertThat(clientService.findClientById(1)).get().extracting(ClientDTO::getEmail)
+                .isEqualTo("existing1@example.com");
+        // Duplicates are reported by the renamed constraint
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        assertThatThrownBy(() -> jdbcTemplate.update("insert into CLIENT (id, first_name, last_name, email, username, "
+                        + "password, role, status, created_at, updated_at, version) "
+                        + "values (?, 'First', 'Last', 'existing2@example.com', 'other', 'hash', 'CLIENT', 'ACTIVE', ?, ?, 0)",
+                registered.getId() + 1, now, now))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("uk_client_email");
+    }
+
+    @Test
+    void alignmentIsSafeToRunAgain() throws Exception {
+        List<String> constraints = uniqueConstraints();
+        long next = jdbcTemplate.queryForObject(
+                "select base_value from information_schema.sequences where sequence_name = 'client_seq'", Long.class);
+
+        try (Connection connection = dataSource.getConnection()) {
+            new V1_1__Align_client_table().migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return null;
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return connection;
+                }
+            });
+        }
+
+        assertThat(uniqueConstraints()).containsExactlyInAnyOrderElementsOf(constraints);
+        assertThat(jdbcTemplate.queryForObject(
+                "select base_value from information_schema.sequences where sequence_name = 'client_seq'", Long.class))
+                .isEqualTo(next);
+    }
+
+    private List<String> uniqueConstraints() {
+        return jdbcTemplate.queryForList("select constraint_name from information_schema.table_constraints "
+                + "where table_name = 'client' and constraint_type = 'UNIQUE'", String.class);
+    }
+}
@@ -0,0 +1,131 @@
+package tn.pi.clientservice.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import tn.pi.clientservice.dto.ClientChangeDTO;
+import tn.pi.clientservice.enums.ClientChangeType;
+import tn.pi.clientservice.event.ClientChangesRelayedEvent;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The relay holds back at a gap in the outbox ids until it is filled or has been seen for the timeout, and never
+ * goes back below it; a skipped id committed later is counted as late instead
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:change_relay;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        // Polled by the test only, after the run at startup
+        "client.outbox.poll-interval-ms=3600000",
+        "client.outbox.gap-timeout-ms=" + ClientChangeRelayTest.GAP_TIMEOUT_MS
+})
+@RecordApplicationEvents
+class ClientChangeRelayTest {
+
+    static final long GAP_TIMEOUT_MS = 1000;
+
+    @Autowired
+    private ClientChangeRelay clientChangeRelay;
+
+    @Autowired
+    private ClientOutbox clientOutbox;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void gapsAreWaitedOnUntilFilledOrTimedOut() throws InterruptedException {
+        long base = caughtUp();
+
+        // base + 2 is still being written by a transaction that has not committed
+        insert(base + 1, LocalDateTime.now());
+        insert(base + 3, LocalDateTime.now());
+        assertThat(relayed()).containsExactly(base + 1);
+
+        // Committed: the relay carries on through it
+        insert(base + 2, LocalDateTime.now());
+        assertThat(relayed()).containsExactly(base + 2, base + 3);
+
+        // A gap still open once the timeout has passed is a rolled-back insert: skipped
+        insert(base + 5, LocalDateTime.now());
+        assertThat(relayed()).isEmpty();
+        Thread.sleep(GAP_TIMEOUT_MS + 100);
+        assertThat(relayed()).containsExactly(base + 5);
+    }
+
+    @Test
+    void theTimeoutRunsFromWhenTheGapIsFirstSeen() {
+        long base = caughtUp();
+
+        // Written at the start of a long transaction: older than the timeout when it becomes visible
+        insert(base + 2, LocalDateTime.now().minusMinutes(5));
+        assertThat(relayed()).isEmpty();
+
+        insert(base + 1, LocalDateTime.now().minusMinutes(5));
+        assertThat(relayed()).containsExactly(base + 1, base + 2);
+    }
+
+    @Test
+    void rowsCommittedAfterTheTimeoutAreCountedAsLate() throws InterruptedException {
+        long base = caughtUp();
+        double late = lateChanges();
+
+        insert(base + 2, LocalDateTime.now());
+        assertThat(relayed()).isEmpty();
+        Thread.sleep(GAP_TIMEOUT_MS + 100);
+        assertThat(relayed()).containsExactly(base + 2);
+
+        // The transaction holding base + 1 commits only now: below the relayed position, so never sent
+        insert(base + 1, LocalDateTime.now().minusSeconds(2));
+        insert(base + 3, LocalDateTime.now());
+        assertThat(relayed()).containsExactly(base + 3);
+        assertThat(lateChanges() - late).isEqualTo(1);
+
+        // Reported once
+        assertThat(relayed()).isEmpty();
+        assertThat(lateChanges() - late).isEqualTo(1);
+    }
+
+    /**
+     * Poll once, then return the end of the outbox; each test leaves the relay there
+     */
+    private long caughtUp() {
+        clientChangeRelay.relay();
+        return clientOutbox.findMaxId();
+    }
+
+    /**
+     * Poll once and return the ids it relayed
+     */
+    private List<Long> relayed() {
+        applicationEvents.clear();
+        clientChangeRelay.relay();
+        return applicationEvents.stream(ClientChangesRelayedEvent.class)
+                .flatMap(event -> event.getChanges().stream())
+                .map(ClientChangeDTO::getId)
+                .toList();
+    }
+
+    private double lateChanges() {
+        return meterRegistry.get("client.outbox.late.changes").counter().count();
+    }
+
+    private void insert(long id, LocalDateTime occurredAt) {
+        jdbcTemplate.update("insert into client_outbox (id, client_id, type, payload, occurred_at) values (?, ?, ?, ?, ?)",
+                id, 1_000_000 + id, ClientChangeType.UPDATED.name(), "{}", Timestamp.valueOf(occurredAt));
+    }
+}
@@ -0,0 +1,173 @@
+package tn.pi.clientservice.ratelimit;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Buckets at and past their limit, the filter's 429s and replayed bodies, and limit validation.
+ * Runs in a context of its own, as only this test limits a route.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate_limit;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "client.rate-limit.routes.register.method=POST",
+        "client.rate-limit.routes.register.path=/clients/register",
+        "client.rate-limit.routes.register.per-ip.requests-per-minute=10",
+        "client.rate-limit.routes.register.per-ip.burst=5",
+        "client.rate-limit.routes.register.target=body:username",
+        "client.rate-limit.routes.register.per-target.requests-per-minute=2",
+        "client.rate-limit.routes.register.per-target.burst=2"
+})
+class RateLimitTest extends IntegrationTest {
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Test
+    void burstIsAllowedThenRequestsWaitOneEmissionInterval() {
+        String key = "test:" + nextNumber();
+        RateLimitProperties.Limit limit = limit(60, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire(key, limit)).as("request %d", i).isZero();
+        }
+        long wait = rateLimiter.tryAcquire(key, limit);
+
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+        // Other keys have buckets of their own
+        assertThat(rateLimiter.tryAcquire(key + ":other", limit)).isZero();
+    }
+
+    @Test
+    void concurrentRequestsNeverGetMoreThanTheBurst() throws InterruptedException {
+        String key = "test:" + nextNumber();
+        RateLimitProperties.Limit limit = limit(1, 5);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 10; j++) {
+                    if (rateLimiter.tryAcquire(key, limit) == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed).hasValue(5);
+    }
+
+    @Test
+    void filterRejectsATargetPastItsLimitAndReplaysTheBodyOtherwise() throws Exception {
+        // Registration allows two attempts per username, back to back
+        String body = "{\"username\":\"limited" + nextNumber() + "\",\"password\":\"password\"}";
+        List<String> forwarded = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            rateLimitFilter.doFilter(registerRequest(body, "10.0.0." + i), response,
+                    (request, ignored) -> forwarded.add(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(registerRequest(body, "10.0.0.9"), rejected, (request, ignored) -> forwarded.add("unexpected"));
+
+        assertThat(forwarded).containsExactly(body, body);
+        assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(rejected.getHeader("Retry-After")).isNotNull();
+    }
+
+    @Test
+    void replayedBodyCanBeReadWithAReadListener() throws Exception {
+        String body = "{\"username\":\"listener" + nextNumber() + "\"}";
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> callbacks = new ArrayList<>();
+
+        rateLimitFilter.doFilter(registerRequest(body, "10.0.1.1"), new MockHttpServletResponse(), (request, ignored) -> {
+            ServletInputStream in = request.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    callbacks.add("data");
+                    byte[] buffer = new byte[8];
+                    int n;
+                    while (in.isReady() && (n = in.read(buffer)) >= 0) {
+                        read.write(buffer, 0, n);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    callbacks.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    callbacks.add("error");
+                }
+            });
+        });
+
+        assertThat(callbacks).containsExactly("data", "done");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void limitsThatAreNotPositiveFailAtStartup() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class,
+                        ValidationAutoConfiguration.class))
+                .withUserConfiguration(RateLimitProperties.class)
+                .withPropertyValues("client.rate-limit.routes.login.path=/clients/login");
+
+        runner.withPropertyValues("client.rate-limit.routes.login.per-ip.requests-per-minute=0")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("client.rate-limit.routes.login.per-target.requests-per-minute=-5")
+                .run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("client.rate-limit.routes.login.per-ip.requests-per-minute=30")
+                .run(context -> assertThat(context).hasNotFailed());
+    }
+
+    private static MockHttpServletRequest registerRequest(String body, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/clients/register");
+        request.setContextPath("/api");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static RateLimitProperties.Limit limit(int requestsPerMinute, int burst) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setRequestsPerMinute(requestsPerMinute);
+        limit.setBurst(burst);
+        return limit;
+    }
+}
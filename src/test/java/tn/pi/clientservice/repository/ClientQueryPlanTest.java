@@ -0,0 +1,98 @@
+package tn.pi.clientservice.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.migration.V1_1__Align_client_table;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks on H2 that the listing queries are answered from the indexes created by the migrations
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query_plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        // The slice does not load SecondLevelCacheConfig, and the plans do not involve the cache
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// The slice does not scan components, and the indexes come from this migration
+@Import(V1_1__Align_client_table.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ClientQueryPlanTest {
+
+    private static final int CLIENT_COUNT = 2000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Seeded once outside the test transactions, since ANALYZE commits
+     */
+    @BeforeAll
+    void seedClients() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= CLIENT_COUNT; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusMinutes(i));
+            rows.add(new Object[]{i, "First" + i, "Last" + i, "client" + i + "@example.com", "client" + i, "hash",
+                    (i % 20 == 0 ? UserRole.ADMIN : UserRole.CLIENT).name(),
+                    UserStatus.values()[i % UserStatus.values().length].name(), createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate("insert into client (id, first_name, last_name, email, username, password, role, status, "
+                + "created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        // Refresh selectivity statistics so the optimizer sees the seeded distribution
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void statusListingUsesStatusIdIndex() {
+        String plan = explain("select id, first_name, email from client where status = 'SUSPENDED' and id > 100 order by id limit 51");
+
+        assertThat(plan).contains("idx_client_status_id").doesNotContain("tablescan");
+    }
+
+    @Test
+    void roleListingUsesRoleIdIndex() {
+        String plan = explain("select id, first_name, email from client where role = 'ADMIN' and id > 100 order by id limit 51");
+
+        assertThat(plan).contains("idx_client_role_id").doesNotContain("tablescan");
+    }
+
+    @Test
+    void creationRangeUsesCreatedAtIndex() {
+        String plan = explain("select id, email from client where created_at >= timestamp '2024-01-02 00:00:00' "
+                + "order by created_at, id limit 50");
+
+        assertThat(plan).contains("idx_client_created_at").doesNotContain("tablescan");
+    }
+
+    @Test
+    void updateRangeUsesUpdatedAtIndex() {
+        String plan = explain("select id, email from client where updated_at >= timestamp '2024-01-02 00:00:00' "
+                + "order by updated_at, id limit 50");
+
+        assertThat(plan).contains("idx_client_updated_at").doesNotContain("tablescan");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,89 @@
+package tn.pi.clientservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientImportDTO;
+import tn.pi.clientservice.dto.ClientImportErrorDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.enums.ImportStatus;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A CSV import registers the valid rows across chunks and reports each rejected one by its record number
+ */
+class ClientImportTest extends IntegrationTest {
+
+    @Autowired
+    private ClientImportService clientImportService;
+
+    @Test
+    void validRowsAreImportedAndRejectedOnesReported() throws Exception {
+        clientService.registerClient(new ClientDTO("Existing", "Client", "existing@example.com", "existing", "password"));
+        String csv = """
+                first_name,last_name,email,username,password,role,status,address
+                Alice,Martin,alice@example.com,alice,password,,,
+                Bob,Martin,not-an-email,bob,password,,,
+                Alicia,Martin,ALICE@example.com,alicia,password,,,
+                Carl,Martin,Existing@Example.com,carl,password,,,
+                Dana,Martin,dana@example.com,dana,password,boss,,
+                Emma,Martin,emma@example.com,emma,password,,,"12 Rue de Rome, Tunis"
+                Farah,Martin,farah@example.com,farah,password,admin,suspended,
+                """;
+
+        ClientImportDTO job = clientImportService.submit(
+                new MockMultipartFile("file", "clients.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)));
+        ClientImportDTO done = awaitFinished(job.getId());
+
+        assertThat(done.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+        assertThat(done.getRowsRead()).isEqualTo(7);
+        assertThat(done.getImported()).isEqualTo(3);
+        assertThat(done.getFailed()).isEqualTo(4);
+
+        // Paged in record order
+        List<ClientImportErrorDTO> errors = new ArrayList<>();
+        ClientPageDTO<ClientImportErrorDTO> page = clientImportService.getErrors(job.getId(), null, 3);
+        errors.addAll(page.getContent());
+        assertThat(page.isHasNext()).isTrue();
+        page = clientImportService.getErrors(job.getId(), page.getNextCursor(), 3);
+        errors.addAll(page.getContent());
+        assertThat(page.isHasNext()).isFalse();
+
+        assertThat(errors).extracting(ClientImportErrorDTO::getRecordNumber).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(errors).extracting(ClientImportErrorDTO::getMessage).containsExactly(
+                "Email must be valid",
+                "Duplicate email in file: ALICE@example.com",
+                "Email already exists: Existing@Example.com",
+                "Unknown role: boss");
+        assertThat(errors.get(2).getUsername()).isEqualTo("carl");
+
+        assertThat(clientService.findClientByEmail("alice@example.com")).isPresent();
+        assertThat(clientService.findClientByEmail("emma@example.com")).get()
+                .extracting(ClientDTO::getAddress).isEqualTo("12 Rue de Rome, Tunis");
+        ClientDTO farah = clientService.findClientByEmail("farah@example.com").orElseThrow();
+        assertThat(farah.getRole()).isEqualTo(UserRole.ADMIN);
+        assertThat(farah.getStatus()).isEqualTo(UserStatus.SUSPENDED);
+        assertThat(clientService.findClientByUsername("bob")).isEmpty();
+        assertThat(clientService.findClientByUsername("carl")).isEmpty();
+    }
+
+    private ClientImportDTO awaitFinished(long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        ClientImportDTO job = clientImportService.findImport(id).orElseThrow();
+        while ((job.getStatus() == ImportStatus.PENDING || job.getStatus() == ImportStatus.RUNNING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = clientImportService.findImport(id).orElseThrow();
+        }
+        return job;
+    }
+}
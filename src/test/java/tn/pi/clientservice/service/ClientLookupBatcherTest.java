@@ -0,0 +1,194 @@
+package tn.pi.clientservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.exception.ServiceUnavailableException;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Concurrent lookups by id are loaded together, once per distinct id and at most max-batch-size at a time.
+ * A failed load fails every lookup waiting on it, and a lookup waits for its batch only up to the timeout.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lookup_batcher;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        // Wide enough for every thread of a test to arrive before it closes
+        "client.lookup.coalescing.window-micros=1000000",
+        "client.lookup.coalescing.max-batch-size=4",
+        "client.lookup.coalescing.timeout-ms=3000"
+})
+class ClientLookupBatcherTest extends IntegrationTest {
+
+    private static final long MISSING_ID = 999_999L;
+
+    @Autowired
+    private ClientLookupBatcher clientLookupBatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoSpyBean
+    private ClientRepository clientRepository;
+
+    @Test
+    void concurrentLookupsShareOneLoad() throws Exception {
+        List<Long> ids = List.of(register().getId(), register().getId(), MISSING_ID);
+        List<Long> requested = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            requested.add(ids.get(i % ids.size()));
+        }
+        long batches = batchSizes().count();
+        double loaded = batchSizes().totalAmount();
+
+        List<Optional<ClientDTO>> results = loadConcurrently(requested);
+
+        // Three distinct ids, under the maximum: one query for all nine lookups
+        assertThat(batchSizes().count() - batches).isEqualTo(1);
+        assertThat(batchSizes().totalAmount() - loaded).isEqualTo(3);
+        for (int i = 0; i < requested.size(); i++) {
+            if (requested.get(i) == MISSING_ID) {
+                assertThat(results.get(i)).isEmpty();
+            } else {
+                assertThat(results.get(i)).get().extracting(ClientDTO::getId).isEqualTo(requested.get(i));
+            }
+        }
+    }
+
+    @Test
+    void fullBatchesAreLoadedWithoutWaitingForTheWindow() throws Exception {
+        List<Long> requested = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requested.add(register().getId());
+        }
+        long batches = batchSizes().count();
+        double loaded = batchSizes().totalAmount();
+
+        List<Optional<ClientDTO>> results = loadConcurrently(requested);
+
+        assertThat(batchSizes().count() - batches).isGreaterThanOrEqualTo(3);
+        assertThat(batchSizes().totalAmount() - loaded).isEqualTo(10);
+        assertThat(batchSizes().max()).isLessThanOrEqualTo(4);
+        assertThat(results).extracting(result -> result.orElseThrow().getId()).containsExactlyElementsOf(requested);
+    }
+
+    @Test
+    void aFullBatchDoesNotCutTheNextWindowShort() throws Exception {
+        List<Long> full = List.of(register().getId(), register().getId(), register().getId(), register().getId());
+        Long next = register().getId();
+
+        // Closes its window at the maximum size, before the window's scheduled close
+        loadConcurrently(full);
+        Thread.sleep(500);
+        long start = System.nanoTime();
+        clientLookupBatcher.load(next);
+
+        // The next window runs its full second, not up to the first window's scheduled close
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void aFailedLoadFailsEveryLookupWaitingOnIt() throws Exception {
+        List<Long> ids = List.of(register().getId(), register().getId(), MISSING_ID);
+        OutOfMemoryError error = new OutOfMemoryError("Java heap space");
+        doThrow(error).when(clientRepository).loadAllById(any());
+
+        ExecutorService threads = Executors.newFixedThreadPool(ids.size());
+        try {
+            List<Future<Optional<ClientDTO>>> futures = new ArrayList<>();
+            for (Long id : ids) {
+                futures.add(threads.submit(() -> clientLookupBatcher.load(id)));
+            }
+            for (Future<Optional<ClientDTO>> future : futures) {
+                // Well before the timeout: the error completed the lookups rather than leaving them pending
+                assertThatThrownBy(() -> future.get(2, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .cause().isSameAs(error);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void aLookupWaitsForItsBatchOnlyUpToTheTimeout() {
+        Long id = register().getId();
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(clientRepository).loadAllById(any());
+
+        try {
+            assertThatThrownBy(() -> clientLookupBatcher.load(id)).isInstanceOf(ServiceUnavailableException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void lookupsInsideATransactionLoadDirectly() {
+        ClientDTO client = register();
+        long batches = batchSizes().count();
+
+        Optional<ClientDTO> found = new TransactionTemplate(transactionManager)
+                .execute(status -> clientLookupBatcher.load(client.getId()));
+
+        assertThat(found).get().extracting(ClientDTO::getEmail).isEqualTo(client.getEmail());
+        assertThat(batchSizes().count()).isEqualTo(batches);
+    }
+
+    /**
+     * Look up each id on its own thread, all released at once, and return the results in order
+     */
+    private List<Optional<ClientDTO>> loadConcurrently(List<Long> ids) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(ids.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Optional<ClientDTO>>> futures = new ArrayList<>();
+            for (Long id : ids) {
+                futures.add(threads.submit(() -> {
+                    start.await();
+                    return clientLookupBatcher.load(id);
+                }));
+            }
+            start.countDown();
+            List<Optional<ClientDTO>> results = new ArrayList<>();
+            for (Future<Optional<ClientDTO>> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    private DistributionSummary batchSizes() {
+        return meterRegistry.get("client.lookup.batch.size").summary();
+    }
+}
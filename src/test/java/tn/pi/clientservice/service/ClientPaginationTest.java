@@ -0,0 +1,78 @@
+package tn.pi.clientservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPageDTO;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Keyset pages walk the clients in id order without gaps or repeats, and the stream yields every client in the same order
+ */
+class ClientPaginationTest extends IntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${client.pagination.max-size}")
+    private int maxPageSize;
+
+    @Test
+    void pagesFollowTheCursorUntilTheLastClient() {
+        List<Long> ids = register(5);
+        Long after = ids.get(0) - 1;
+
+        ClientPageDTO<ClientDTO> first = clientService.getClientsPage(after, 2);
+        assertThat(first.getContent()).extracting(ClientDTO::getId).containsExactly(ids.get(0), ids.get(1));
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getNextCursor()).isEqualTo(ids.get(1));
+
+        ClientPageDTO<ClientDTO> second = clientService.getClientsPage(first.getNextCursor(), 2);
+        assertThat(second.getContent()).extracting(ClientDTO::getId).containsExactly(ids.get(2), ids.get(3));
+
+        ClientPageDTO<ClientDTO> third = clientService.getClientsPage(second.getNextCursor(), 2);
+        assertThat(third.getContent()).extracting(ClientDTO::getId).startsWith(ids.get(4));
+
+        // Other tests share the table: the last page is the one holding its highest id
+        long lastId = jdbcTemplate.queryForObject("select max(id) from CLIENT where deleted_at is null", Long.class);
+        ClientPageDTO<ClientDTO> last = clientService.getClientsPage(lastId - 1, 2);
+        assertThat(last.getContent()).extracting(ClientDTO::getId).containsExactly(lastId);
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizesAreBounded() {
+        register(maxPageSize + 1);
+
+        assertThat(clientService.getClientsPage(null, maxPageSize + 100).getSize()).isEqualTo(maxPageSize);
+        assertThatThrownBy(() -> clientService.getClientsPage(null, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void streamYieldsEveryClientInIdOrder() {
+        List<Long> ids = register(4);
+
+        List<Long> streamed = new ArrayList<>();
+        clientService.streamAllClients(client -> streamed.add(client.getId()));
+
+        assertThat(streamed).isSorted().doesNotHaveDuplicates().containsSubsequence(ids);
+        assertThat(streamed).hasSize(clientService.getAllClients().size());
+    }
+
+    private List<Long> register(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(register().getId());
+        }
+        return ids;
+    }
+}
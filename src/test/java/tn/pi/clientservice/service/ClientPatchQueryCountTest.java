@@ -0,0 +1,103 @@
+package tn.pi.clientservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.exception.PreconditionFailedException;
+import tn.pi.clientservice.exception.ResourceAlreadyExistsException;
+import tn.pi.clientservice.support.IntegrationTest;
+import tn.pi.clientservice.support.RecordingStatementInspector;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Locks in the round-trip budget of a partial update: one SELECT, then one UPDATE of the changed columns.
+ * The client is evicted from the second-level cache after registering, except where a test says otherwise.
+ */
+class ClientPatchQueryCountTest extends IntegrationTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statusChangeIsOneSelectAndOneSingleColumnUpdate() {
+        ClientDTO client = register();
+
+        List<String> statements = RecordingStatementInspector.record(() -> clientService.patchClient(
+                client.getId().intValue(), ClientPatchDTO.builder().status(UserStatus.SUSPENDED).build(), null));
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0)).startsWith("select");
+        assertThat(statements.get(1)).startsWith("update").contains("status", "version", "updated_at")
+                .doesNotContain("first_name", "email", "username", "password", "address");
+        ClientDTO patched = clientService.findClientById(client.getId().intValue()).orElseThrow();
+        assertThat(patched.getStatus()).isEqualTo(UserStatus.SUSPENDED);
+        assertThat(patched.getVersion()).isEqualTo(client.getVersion() + 1);
+    }
+
+    @Test
+    void patchOfACachedClientSkipsTheSelect() {
+        ClientDTO client = register();
+        clientService.findClientById(client.getId().intValue());
+
+        List<String> statements = RecordingStatementInspector.record(() -> clientService.patchClient(
+                client.getId().intValue(), ClientPatchDTO.builder().status(UserStatus.SUSPENDED).build(), null));
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).startsWith("update");
+    }
+
+    @Test
+    void patchChangingNothingIsOneSelect() {
+        ClientDTO client = register();
+
+        List<String> statements = RecordingStatementInspector.record(() -> clientService.patchClient(
+                client.getId().intValue(), ClientPatchDTO.builder().firstName(client.getFirstName()).build(), null));
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0)).startsWith("select");
+    }
+
+    @Test
+    void takenEmailIsRejectedByTheUniqueConstraintWithoutPreQueries() {
+        ClientDTO client = register();
+        ClientDTO other = register();
+
+        List<String> statements = RecordingStatementInspector.record(() -> assertThatThrownBy(() -> clientService.patchClient(
+                client.getId().intValue(), ClientPatchDTO.builder().email(other.getEmail()).build(), null))
+                .isInstanceOf(ResourceAlreadyExistsException.class)
+                .hasMessage("Email already exists: " + other.getEmail()));
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(1)).startsWith("update").contains("email");
+        assertThat(clientService.findClientById(client.getId().intValue()).orElseThrow().getEmail())
+                .isEqualTo(client.getEmail());
+    }
+
+    @Test
+    void staleIfMatchIsRejectedWithoutWriting() {
+        ClientDTO client = register();
+
+        List<String> statements = RecordingStatementInspector.record(() -> assertThatThrownBy(() -> clientService.patchClient(
+                client.getId().intValue(), ClientPatchDTO.builder().lastName("Changed").build(), client.getVersion() + 1))
+                .isInstanceOf(PreconditionFailedException.class));
+
+        assertThat(statements).hasSize(1);
+    }
+
+    /**
+     * Register a client and evict it from the second-level cache
+     */
+    @Override
+    protected ClientDTO register() {
+        ClientDTO client = super.register();
+        entityManagerFactory.getCache().evictAll();
+        return client;
+    }
+}
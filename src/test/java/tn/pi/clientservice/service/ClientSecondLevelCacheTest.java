@@ -0,0 +1,87 @@
+package tn.pi.clientservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import tn.pi.clientservice.cache.SecondLevelCache;
+import tn.pi.clientservice.dto.CacheRegionStatsDTO;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.entities.Client;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.support.IntegrationTest;
+import tn.pi.clientservice.support.RecordingStatementInspector;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Client lookups by id, username and email answered from the second-level cache without SQL
+ */
+class ClientSecondLevelCacheTest extends IntegrationTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private SecondLevelCache secondLevelCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void usernameLookupOfAClientLoadedByIdIssuesNoSql() {
+        ClientDTO client = register();
+        assertThat(RecordingStatementInspector.record(() -> clientRepository.findById(client.getId().intValue())))
+                .hasSize(1);
+
+        List<String> statements = RecordingStatementInspector.record(() ->
+                assertThat(clientRepository.findByUsername(client.getUsername())).get()
+                        .extracting(Client::getId).isEqualTo(client.getId()));
+
+        assertThat(statements).isEmpty();
+        assertThat(regionStats(Client.NATURAL_ID_CACHE_REGION).getHitCount()).isPositive();
+    }
+
+    @Test
+    void repeatedEmailLookupIssuesNoSql() {
+        ClientDTO client = register();
+        assertThat(RecordingStatementInspector.record(() -> clientRepository.findByEmail(client.getEmail()))).hasSize(1);
+
+        List<String> statements = RecordingStatementInspector.record(() ->
+                assertThat(clientRepository.findByEmail(client.getEmail())).isPresent());
+
+        assertThat(statements).isEmpty();
+        assertThat(regionStats(Client.EMAIL_QUERY_CACHE_REGION).getHitCount()).isPositive();
+    }
+
+    @Test
+    void renamedClientResolvesByItsNewUsernameOnly() {
+        ClientDTO client = register();
+        clientRepository.findByUsername(client.getUsername());
+
+        clientService.patchClient(client.getId().intValue(),
+                ClientPatchDTO.builder().username(client.getUsername() + "x").email("renamed-" + client.getEmail()).build(),
+                null);
+
+        assertThat(clientRepository.findByUsername(client.getUsername())).isEmpty();
+        assertThat(clientRepository.findByUsername(client.getUsername() + "x")).isPresent();
+        assertThat(clientRepository.findByEmail(client.getEmail())).isEmpty();
+        assertThat(clientRepository.findByEmail("renamed-" + client.getEmail())).isPresent();
+    }
+
+    /**
+     * Register a client and evict it from the second-level cache
+     */
+    @Override
+    protected ClientDTO register() {
+        ClientDTO client = super.register();
+        entityManagerFactory.getCache().evictAll();
+        return client;
+    }
+
+    private CacheRegionStatsDTO regionStats(String region) {
+        return secondLevelCache.stats().stream().filter(stats -> stats.getRegion().equals(region)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,93 @@
+package tn.pi.clientservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.exception.ResourceNotFoundException;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.support.IntegrationTest;
+import tn.pi.clientservice.support.RecordingStatementInspector;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Deleting a client marks its row with one UPDATE and hides it; the purge removes it for good
+ */
+class ClientSoftDeleteTest extends IntegrationTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private DeletedClientPurger deletedClientPurger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deleteIsOneUpdateAndHidesTheClientFromEveryFinder() {
+        ClientDTO client = register();
+        int id = client.getId().intValue();
+
+        // Every statement of the delete: the lookup is a second-level cache hit, so only the UPDATE is sent
+        List<String> statements = RecordingStatementInspector.record(() -> clientService.deleteClient(id));
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0).toLowerCase()).startsWith("update").contains("client set deleted_at");
+        assertThat(clientRepository.findById(id)).isEmpty();
+        assertThat(clientRepository.findByEmail(client.getEmail())).isEmpty();
+        assertThat(clientRepository.findByUsername(client.getUsername())).isEmpty();
+        assertThat(rowCount(id)).isEqualTo(1);
+        assertThatThrownBy(() -> clientService.deleteClient(id)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void deleteOnACacheMissIsOneSelectAndOneUpdate() {
+        ClientDTO client = register();
+        int id = client.getId().intValue();
+        entityManagerFactory.getCache().evictAll();
+
+        List<String> statements = RecordingStatementInspector.record(() -> clientService.deleteClient(id));
+
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0).toLowerCase()).startsWith("select");
+        assertThat(statements.get(1).toLowerCase()).startsWith("update").contains("client set deleted_at");
+        assertThat(rowCount(id)).isEqualTo(1);
+    }
+
+    @Test
+    void deletedClientsEmailAndUsernameCanBeRegisteredAgain() {
+        ClientDTO client = register();
+        clientService.deleteClient(client.getId().intValue());
+
+        ClientDTO again = clientService.registerClient(new ClientDTO(client.getFirstName(), client.getLastName(),
+                client.getEmail(), client.getUsername(), "password"));
+
+        assertThat(again.getId()).isNotEqualTo(client.getId());
+        assertThat(rowCount(client.getId().intValue())).isZero();
+    }
+
+    @Test
+    void purgeRemovesDeletedRowsPastRetentionOnly() {
+        ClientDTO deleted = register();
+        ClientDTO kept = register();
+        clientService.deleteClient(deleted.getId().intValue());
+
+        deletedClientPurger.purge();
+
+        assertThat(rowCount(deleted.getId().intValue())).isZero();
+        assertThat(clientRepository.findById(kept.getId().intValue())).isPresent();
+    }
+
+    private int rowCount(int id) {
+        return jdbcTemplate.queryForObject("select count(*) from CLIENT where id = ?", Integer.class, id);
+    }
+}
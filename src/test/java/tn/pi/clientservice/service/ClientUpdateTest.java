@@ -0,0 +1,53 @@
+package tn.pi.clientservice.service;
+
+import org.junit.jupiter.api.Test;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A full update keeps the email and username, which only a patch changes, and availability checks
+ * compare the input as it would be stored
+ */
+class ClientUpdateTest extends IntegrationTest {
+
+    @Test
+    void updateKeepsEmailAndUsername() {
+        ClientDTO client = register();
+        ClientDTO other = register();
+
+        ClientDTO update = newClient();
+        update.setFirstName("Renamed");
+        update.setEmail(other.getEmail());
+        update.setUsername(other.getUsername());
+        ClientDTO updated = clientService.updateClient(client.getId().intValue(), update, null);
+
+        assertThat(updated.getFirstName()).isEqualTo("Renamed");
+        assertThat(updated.getEmail()).isEqualTo(client.getEmail());
+        assertThat(updated.getUsername()).isEqualTo(client.getUsername());
+    }
+
+    @Test
+    void patchedKeysAreStoredNormalized() {
+        ClientDTO client = register();
+        String email = "Patched" + nextNumber() + "@Example.com";
+
+        ClientDTO patched = clientService.patchClient(client.getId().intValue(),
+                ClientPatchDTO.builder().email("  " + email + " ").build(), null);
+
+        assertThat(patched.getEmail()).isEqualTo(email.toLowerCase());
+        assertThat(clientService.emailExists(email)).isTrue();
+    }
+
+    @Test
+    void availabilityChecksNormalizeTheirInput() {
+        ClientDTO client = register();
+
+        assertThat(clientService.emailExists(" " + client.getEmail().toUpperCase() + " ")).isTrue();
+        assertThat(clientService.usernameExists(" " + client.getUsername() + " ")).isTrue();
+        assertThat(clientService.emailExists("free" + nextNumber() + "@example.com")).isFalse();
+        assertThat(clientService.usernameExists("free" + nextNumber())).isFalse();
+    }
+}
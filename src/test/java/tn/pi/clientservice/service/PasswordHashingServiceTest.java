@@ -0,0 +1,140 @@
+package tn.pi.clientservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import tn.pi.clientservice.exception.HashingCapacityExceededException;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * With one hashing thread and no queue, work beyond the pool is refused at once, work outliving the
+ * timeout is abandoned, and both answer 503 with Retry-After; bulk hashing never exceeds the pool
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:password_hashing;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "client.password.hashing.pool-size=1",
+        "client.password.hashing.queue-capacity=0",
+        "client.password.hashing.timeout-ms=500"
+})
+class PasswordHashingServiceTest extends IntegrationTest {
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoSpyBean
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void workBeyondThePoolIsRefused() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).encode(any());
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> busy = caller.submit(() -> passwordHashingService.encode("password"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            long rejected = passwordHashingService.stats().getRejectedCount();
+            assertThatThrownBy(() -> passwordHashingService.matches("password", "$2a$04$unused"))
+                    .isInstanceOf(HashingCapacityExceededException.class)
+                    .hasMessage("Password hashing is at capacity, please retry later");
+            assertUnavailable(registerRequest());
+            assertThat(passwordHashingService.stats().getRejectedCount()).isEqualTo(rejected + 2);
+
+            release.countDown();
+            assertThat(busy.get(5, TimeUnit.SECONDS)).startsWith("$2a$");
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void workOutlivingTheTimeoutIsAbandoned() throws Exception {
+        doAnswer(invocation -> {
+            // Interrupted when the caller gives up
+            Thread.sleep(10_000);
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).encode(any());
+        long timedOut = passwordHashingService.stats().getTimedOutCount();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> passwordHashingService.encode("password"))
+                .isInstanceOf(HashingCapacityExceededException.class)
+                .hasMessage("Password hashing timed out, please retry later");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+
+        assertUnavailable(registerRequest());
+        assertThat(passwordHashingService.stats().getTimedOutCount()).isEqualTo(timedOut + 2);
+    }
+
+    @Test
+    void bulkHashingKeepsWithinThePool() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return invocation.callRealMethod();
+            } finally {
+                running.decrementAndGet();
+            }
+        }).when(passwordEncoder).encode(any());
+        List<String> passwords = IntStream.range(0, 8).mapToObj(i -> "password" + i).toList();
+
+        // Without a queue, a second task in flight would be refused
+        List<String> hashes = passwordHashingService.encodeAll(passwords);
+
+        assertThat(mostRunning).hasValue(1);
+        assertThat(hashes).hasSize(passwords.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            assertThat(passwordEncoder.matches(passwords.get(i), hashes.get(i))).isTrue();
+        }
+    }
+
+    private ResultActions registerRequest() throws Exception {
+        return mockMvc.perform(post("/clients/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newClient())));
+    }
+
+    private static void assertUnavailable(ResultActions response) throws Exception {
+        response.andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+}
@@ -0,0 +1,99 @@
+package tn.pi.clientservice.stats;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.dto.ClientPatchDTO;
+import tn.pi.clientservice.dto.ClientStatsDTO;
+import tn.pi.clientservice.enums.UserRole;
+import tn.pi.clientservice.enums.UserStatus;
+import tn.pi.clientservice.repository.ClientRepository;
+import tn.pi.clientservice.support.IntegrationTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Counters follow committed changes between reconciliations and keep the ones committed during one.
+ * The repository spy needs a context of its own; it gets a database of its own too, so that it never
+ * writes behind the shared context's caches.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:client_statistics;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+class ClientStatisticsTest extends IntegrationTest {
+
+    @Autowired
+    private ClientStatistics clientStatistics;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private ClientRepository clientRepository;
+
+    @Test
+    void countersFollowRegistrationsUpdatesAndDeletes() {
+        clientStatistics.reconcile();
+        ClientStatsDTO before = clientStatistics.stats(1);
+
+        ClientDTO client = register();
+        clientService.patchClient(client.getId().intValue(),
+                ClientPatchDTO.builder().role(UserRole.ADMIN).status(UserStatus.SUSPENDED).build(), null);
+        ClientDTO deleted = register();
+        clientService.deleteClient(deleted.getId().intValue());
+
+        ClientStatsDTO after = clientStatistics.stats(1);
+        assertThat(after.getTotal()).isEqualTo(before.getTotal() + 1);
+        assertThat(after.getByRole().get(UserRole.ADMIN)).isEqualTo(before.getByRole().get(UserRole.ADMIN) + 1);
+        assertThat(after.getByStatus().get(UserStatus.SUSPENDED)).isEqualTo(before.getByStatus().get(UserStatus.SUSPENDED) + 1);
+        assertMatchesDatabase(after);
+
+        clientStatistics.reconcile();
+        assertThat(clientStatistics.stats(1).getLastReconcileDrift()).isZero();
+    }
+
+    @Test
+    void changesCommittedDuringAReconciliationAreKept() {
+        clientStatistics.reconcile();
+        AtomicBoolean once = new AtomicBoolean();
+        // The spy of the repository proxy delegates through its default answer
+        Answer<?> repository = mockingDetails(clientRepository).getMockCreationSettings().getDefaultAnswer();
+        // Between the first count and the next, another thread registers a client and its event comes in
+        doAnswer(invocation -> {
+            if (once.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(this::register).get(30, TimeUnit.SECONDS);
+            }
+            return repository.answer(invocation);
+        }).when(clientRepository).countByStatus();
+        try {
+            clientStatistics.reconcile();
+        } finally {
+            reset(clientRepository);
+        }
+
+        assertThat(once).isTrue();
+        assertMatchesDatabase(clientStatistics.stats(1));
+    }
+
+    private void assertMatchesDatabase(ClientStatsDTO stats) {
+        long total = jdbcTemplate.queryForObject("select count(*) from CLIENT where deleted_at is null", Long.class);
+        assertThat(stats.getTotal()).isEqualTo(total);
+        assertThat(stats.getByRole().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(total);
+        assertThat(stats.getByStatus().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(total);
+        for (UserStatus status : UserStatus.values()) {
+            assertThat(stats.getByStatus().get(status)).as(status.name()).isEqualTo(jdbcTemplate.queryForObject(
+                    "select count(*) from CLIENT where deleted_at is null and status = ?", Long.class, status.name()));
+        }
+    }
+}
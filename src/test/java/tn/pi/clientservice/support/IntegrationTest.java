@@ -0,0 +1,46 @@
+package tn.pi.clientservice.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import tn.pi.clientservice.dto.ClientDTO;
+import tn.pi.clientservice.service.ClientService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Base of the tests run against the full application. They all share one context, configured by the
+ * test application.properties, and one database, so each test works on clients it registers itself.
+ * A test class declares its own {@link SpringBootTest} only when it needs settings of its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public abstract class IntegrationTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    protected ClientService clientService;
+
+    /**
+     * A number no other test in this run has used, to build unique keys from
+     */
+    protected static int nextNumber() {
+        return SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * A client with a unique email and username, not registered yet
+     */
+    protected static ClientDTO newClient() {
+        int n = nextNumber();
+        return new ClientDTO("First" + n, "Last" + n, "client" + n + "@example.com", "client" + n, "password");
+    }
+
+    /**
+     * Register a new client with a unique email and username
+     */
+    protected ClientDTO register() {
+        return clientService.registerClient(newClient());
+    }
+}
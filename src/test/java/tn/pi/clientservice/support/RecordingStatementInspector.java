@@ -0,0 +1,39 @@
+package tn.pi.clientservice.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records the SQL Hibernate prepares on the calling thread while {@link #record} runs.
+ * Registered as the session factory's statement inspector in the test application.properties.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    /**
+     * Run the action and return the statements it sent, trimmed and lower-cased
+     */
+    public static List<String> record(Runnable action) {
+        List<String> statements = new ArrayList<>();
+        RECORDED.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDED.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDED.get();
+        if (statements != null) {
+            statements.add(sql.trim().toLowerCase(Locale.ROOT));
+        }
+        return sql;
+    }
+}